@@ -2,9 +2,12 @@ package com.peppercarrot.runninggame;
 
 import com.badlogic.gdx.Game;
 import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.Screen;
 import com.badlogic.gdx.graphics.GL20;
+import com.badlogic.gdx.graphics.Mesh;
 import com.badlogic.gdx.graphics.OrthographicCamera;
 import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+import com.badlogic.gdx.graphics.glutils.ShapeRenderer;
 import com.badlogic.gdx.utils.viewport.FitViewport;
 import com.peppercarrot.runninggame.screens.StartScreen;
 import com.peppercarrot.runninggame.utils.Constants;
@@ -12,13 +15,36 @@ import com.peppercarrot.runninggame.utils.Constants;
 /**
  * The main game class.
  * 
+ * Owns the render context: one sprite batch and one shape renderer shared by
+ * all stages and screens, so switching screens does not allocate new GPU
+ * buffers. Replaced screens are disposed.
+ * 
  * @author WinterLicht
  * @author momsen
  *
  */
 public class PaCGame extends Game {
 
+	private static final String LOG_TAG = PaCGame.class.getSimpleName();
+
+	/**
+	 * Sprites per batch flush, the default of {@link SpriteBatch}
+	 */
+	private static final int BATCH_SIZE = 1000;
+
+	/**
+	 * Floats per sprite: 4 vertices of position, packed color and texture
+	 * coordinates
+	 */
+	private static final int SPRITE_FLOATS = 20;
+
+	/**
+	 * Vertices of the shape renderer, the default of {@link ShapeRenderer}
+	 */
+	private static final int SHAPE_VERTICES = 5000;
+
 	public SpriteBatch batch;
+	private ShapeRenderer shapeRenderer;
 	public OrthographicCamera camera;
 	public FitViewport viewport;
 
@@ -37,7 +63,11 @@ public class PaCGame extends Game {
 	 */
 	@Override
 	public void create() {
-		batch = new SpriteBatch();
+		batch = new SpriteBatch(BATCH_SIZE);
+		// Vertex buffer and index buffer of 6 shorts per sprite
+		Gdx.app.log(LOG_TAG, "Render context: sprite batch of " + BATCH_SIZE + " sprites, "
+				+ (BATCH_SIZE * SPRITE_FLOATS * 4 + BATCH_SIZE * 6 * 2) / 1024 + "KB mesh memory, "
+				+ Mesh.getManagedStatus());
 		setupCamera();
 
 		// TODO: Should start with a "start screen"
@@ -56,6 +86,53 @@ public class PaCGame extends Game {
 		viewport = new FitViewport(Constants.VIRTUAL_WIDTH, Constants.VIRTUAL_HEIGHT, camera);
 	}
 
+	/**
+	 * Gets the shape renderer of the render context, which is created on first
+	 * use, since it is only needed for debugging.
+	 * 
+	 * @return shared shape renderer
+	 */
+	public ShapeRenderer getShapeRenderer() {
+		if (shapeRenderer == null) {
+			shapeRenderer = new ShapeRenderer(SHAPE_VERTICES);
+			// Position and packed color per vertex
+			Gdx.app.log(LOG_TAG, "Render context: shape renderer of " + SHAPE_VERTICES + " vertices, "
+					+ SHAPE_VERTICES * 4 * 4 / 1024 + "KB mesh memory");
+		}
+		return shapeRenderer;
+	}
+
+	/**
+	 * Switches to another screen and disposes the current one. The disposal is
+	 * deferred to the next frame, since screens are switched by actions of
+	 * their own stages.
+	 */
+	@Override
+	public void setScreen(Screen screen) {
+		final Screen previous = getScreen();
+		super.setScreen(screen);
+		if (previous != null) {
+			Gdx.app.postRunnable(new Runnable() {
+				@Override
+				public void run() {
+					previous.dispose();
+				}
+			});
+		}
+	}
+
+	@Override
+	public void dispose() {
+		super.dispose();
+		if (getScreen() != null) {
+			getScreen().dispose();
+		}
+		batch.dispose();
+		if (shapeRenderer != null) {
+			shapeRenderer.dispose();
+		}
+	}
+
 	@Override
 	public void resize(int width, int height) {
 		viewport.update(width, height);
@@ -2,6 +2,9 @@ package com.peppercarrot.runninggame.entities;
 
 import com.badlogic.gdx.Gdx;
 import com.peppercarrot.runninggame.stages.WorldStage;
+import com.peppercarrot.runninggame.utils.Callback;
+import com.peppercarrot.runninggame.utils.TimerWheel;
+import com.peppercarrot.runninggame.utils.TimerWheel.Timer;
 
 /**
  * Player's abilities extend this.
@@ -38,9 +41,15 @@ public abstract class Ability {
 	protected boolean running;
 
 	/**
-	 * How long is this ability running.
+	 * Ends the effect after its duration, see {@link TimerWheel}
 	 */
-	protected float currentDuration = 0;
+	private final Timer expiry = new Timer(new Callback() {
+		@Override
+		public void invoke() {
+			finish();
+			running = false;
+		}
+	});
 
 	public Ability(Runner runner, int maxEnergy, float duration) {
 		this.runner = runner;
@@ -63,14 +72,14 @@ public abstract class Ability {
 	}
 
 	/**
-	 * Updates the effect. If it is currently running, a cool down will be done.
+	 * Updates the effect, if it is currently running. The effect is ended by
+	 * its timer, not by polling its duration.
 	 * 
 	 * @param delta
 	 *            time since last frame
 	 */
 	public void update(float delta) {
 		if (running) {
-			coolDown(delta);
 			internalUpdate(delta);
 		}
 	}
@@ -79,9 +88,9 @@ public abstract class Ability {
 	 * Cancel ability.
 	 */
 	protected void cancel() {
+		TimerWheel.I.cancel(expiry);
 		finish();
 		running = false;
-		currentDuration = 0.0f;
 		energy = 0;
 	}
 
@@ -94,17 +103,6 @@ public abstract class Ability {
 	 */
 	protected abstract void internalUpdate(float delta);
 
-	private void coolDown(float delta) {
-		if (running && duration > -1) {
-			currentDuration += delta;
-			if (currentDuration > duration) {
-				finish();
-				running = false;
-				currentDuration = 0.0f;
-			}
-		}
-	}
-
 	/**
 	 * Called after the effect is done
 	 */
@@ -118,18 +116,20 @@ public abstract class Ability {
 	 *            game world
 	 */
 	public void activate(WorldStage worldStage) {
-		Gdx.app.log(getClass().getSimpleName(), "activate");
+		Gdx.app.debug(getClass().getSimpleName(), "activate");
 		if (!running) {
 			if (energy >= maxEnergy) {
-				currentDuration = 0f;
 				energy = 0;
 				running = true;
+				if (duration > -1) {
+					TimerWheel.I.schedule(expiry, duration);
+				}
 				execute(worldStage);
 			} else {
-				Gdx.app.log(getClass().getSimpleName(), "not enough energy");
+				Gdx.app.debug(getClass().getSimpleName(), "not enough energy");
 			}
 		} else {
-			Gdx.app.log(getClass().getSimpleName(), "is already executing");
+			Gdx.app.debug(getClass().getSimpleName(), "is already executing");
 		}
 	}
 
@@ -149,8 +149,13 @@ public abstract class Ability {
 		return maxEnergy;
 	}
 
+	/**
+	 * How long is this ability running.
+	 * 
+	 * @return time in seconds, 0 if it has no duration
+	 */
 	public float getCurrentDuration() {
-		return currentDuration;
+		return expiry.isScheduled() ? duration - TimerWheel.I.getRemaining(expiry) : 0;
 	}
 
 	public float getDuration() {
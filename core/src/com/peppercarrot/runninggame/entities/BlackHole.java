@@ -4,17 +4,20 @@ import java.util.ArrayList;
 import java.util.List;
 
 import com.badlogic.gdx.graphics.g2d.Animation;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
 import com.badlogic.gdx.math.Interpolation;
 import com.badlogic.gdx.math.Rectangle;
-import com.badlogic.gdx.scenes.scene2d.Group;
-import com.badlogic.gdx.scenes.scene2d.actions.Actions;
-import com.badlogic.gdx.scenes.scene2d.actions.ParallelAction;
+import com.badlogic.gdx.scenes.scene2d.Actor;
 import com.badlogic.gdx.scenes.scene2d.ui.Image;
+import com.badlogic.gdx.utils.Align;
+import com.badlogic.gdx.utils.Pool;
 import com.nGame.utils.scene2d.AnimatedDrawable;
 import com.nGame.utils.scene2d.AnimatedImage;
 import com.peppercarrot.runninggame.stages.WorldStage;
 import com.peppercarrot.runninggame.utils.Assets;
 import com.peppercarrot.runninggame.utils.Constants;
+import com.peppercarrot.runninggame.utils.SharedAnimationImage;
+import com.peppercarrot.runninggame.utils.TweenEngine;
 
 /**
  * Moves all game entities to the given point on the screen. Enemies are
@@ -33,10 +36,43 @@ public class BlackHole extends Ability {
 		}
 	}
 
+	/**
+	 * Enemies and potions each, for which the images are created up front, so
+	 * that executing does not allocate. More are allocated on demand.
+	 */
+	private static final int PREALLOCATED_TARGETS = 16;
+
 	private final Effect effect;
 
-	private final Group affectedEnemies = new Group();
-	private final Group affectedPotions = new Group();
+	/**
+	 * Actors moving into the black hole, added to the effects layer one by
+	 * one, so each one is culled
+	 */
+	private final List<SharedAnimationImage> affectedEnemies = new ArrayList<SharedAnimationImage>(
+			PREALLOCATED_TARGETS);
+	private final List<Image> affectedPotions = new ArrayList<Image>(PREALLOCATED_TARGETS);
+
+	/**
+	 * Images of the affected potions, reused for each execution
+	 */
+	private final Pool<Image> potionImages = new Pool<Image>(PREALLOCATED_TARGETS) {
+		@Override
+		protected Image newObject() {
+			return new Image();
+		}
+	};
+
+	/**
+	 * Death animations of the affected enemies, reused for each execution.
+	 * The enemies themselves are released by their segments independently of
+	 * the black hole.
+	 */
+	private final Pool<SharedAnimationImage> enemyImages = new Pool<SharedAnimationImage>(PREALLOCATED_TARGETS) {
+		@Override
+		protected SharedAnimationImage newObject() {
+			return new SharedAnimationImage();
+		}
+	};
 
 	/**
 	 * Effect radius
@@ -49,14 +85,18 @@ public class BlackHole extends Ability {
 	private final float OFFSET_X = (Constants.VIRTUAL_WIDTH * 3) / 4;
 	private final float OFFSET_Y = (Constants.VIRTUAL_HEIGHT * 4) / 5 - Constants.OFFSET_TO_GROUND;
 
-	private final List<Enemy> tempAffectedEnemies = new ArrayList<Enemy>();
-	private final List<Potion> tempAffectedPotions = new ArrayList<Potion>();
+	private final List<Enemy> tempAffectedEnemies = new ArrayList<Enemy>(PREALLOCATED_TARGETS);
+	private final List<Potion> tempAffectedPotions = new ArrayList<Potion>(PREALLOCATED_TARGETS);
 	private final Rectangle tempRect = new Rectangle();
 
 	public BlackHole(Runner runner, int maxEnergy, float duration) {
 		super(runner, maxEnergy, duration);
 		effect = new Effect(getDuration());
 		effect.setVisible(false);
+		for (int i = 0; i < PREALLOCATED_TARGETS; i++) {
+			potionImages.free(new Image());
+			enemyImages.free(new SharedAnimationImage());
+		}
 	}
 
 	@Override
@@ -71,13 +111,19 @@ public class BlackHole extends Ability {
 		effect.setVisible(true);
 
 		worldStage.getLevelStream().getEnemiesNear(effectXPosition, effectYPosition, RADIUS, tempAffectedEnemies);
-		for (final Enemy enemy : tempAffectedEnemies) {
+		for (int i = 0; i < tempAffectedEnemies.size(); i++) {
+			final Enemy enemy = tempAffectedEnemies.get(i);
 			if (enemy.isAlive()) {
 
 				enemy.die();
 				enemy.setVisible(false);
 
-				final AnimatedImage animation = enemy.dyingAnim;
+				final SharedAnimationImage animation = enemyImages.obtain();
+				animation.setAnimation(enemy.getDyingAnimation());
+				final TextureRegion frame = animation.getKeyFrame();
+				animation.setSize(frame.getRegionWidth(), frame.getRegionHeight());
+				animation.setOrigin(Align.center);
+				animation.setRotation(0);
 				animation.setVisible(true);
 
 				// Set image on initial enemy position
@@ -85,20 +131,21 @@ public class BlackHole extends Ability {
 				animation.setX(tempRect.x);
 				animation.setY(tempRect.y);
 
-				final ParallelAction pAction = new ParallelAction();
-				pAction.addAction(Actions.moveTo(effectXPosition, effectYPosition, getDuration(), Interpolation.pow2));
-				pAction.addAction(Actions.forever(Actions.rotateBy(360f, 0.8f)));
-				animation.addAction(pAction);
+				attract(animation, effectXPosition, effectYPosition);
 
-				affectedEnemies.addActor(animation);
+				affectedEnemies.add(animation);
 			}
 		}
 		worldStage.getLevelStream().getPotionsNear(effectXPosition, effectYPosition, RADIUS, tempAffectedPotions);
-		for (final Potion potion : tempAffectedPotions) {
+		for (int i = 0; i < tempAffectedPotions.size(); i++) {
+			final Potion potion = tempAffectedPotions.get(i);
 			if (potion.isVisible()) {
 				potion.collected();
 
-				final Image potionImage = new Image(potion.potionImage.getDrawable());
+				final Image potionImage = potionImages.obtain();
+				potionImage.setDrawable(potion.potionImage.getDrawable());
+				potionImage.setSize(potionImage.getPrefWidth(), potionImage.getPrefHeight());
+				potionImage.setRotation(0);
 				potionImage.setVisible(true);
 
 				// Set image on initial potion position
@@ -106,17 +153,26 @@ public class BlackHole extends Ability {
 				potionImage.setX(tempRect.x);
 				potionImage.setY(tempRect.y);
 
-				final ParallelAction pAction = new ParallelAction();
-				pAction.addAction(Actions.moveTo(effectXPosition, effectYPosition, getDuration(), Interpolation.pow2));
-				pAction.addAction(Actions.forever(Actions.rotateBy(360f, 0.8f)));
-				potionImage.addAction(pAction);
+				attract(potionImage, effectXPosition, effectYPosition);
 
-				affectedPotions.addActor(potionImage);
+				affectedPotions.add(potionImage);
 			}
 		}
-		worldStage.addActor(affectedPotions);
-		worldStage.addActor(affectedEnemies);
-		worldStage.addActor(effect);
+		for (int i = 0; i < affectedPotions.size(); i++) {
+			worldStage.addEffect(affectedPotions.get(i));
+		}
+		for (int i = 0; i < affectedEnemies.size(); i++) {
+			worldStage.addEffect(affectedEnemies.get(i));
+		}
+		worldStage.addEffect(effect);
+	}
+
+	/**
+	 * Moves an actor into the black hole while spinning it.
+	 */
+	private void attract(Actor actor, float x, float y) {
+		TweenEngine.I.moveTo(actor, x, y, getDuration(), Interpolation.pow2, null);
+		TweenEngine.I.repeatBy(actor, TweenEngine.ROTATION, 360f, 0.8f);
 	}
 
 	@Override
@@ -125,8 +181,18 @@ public class BlackHole extends Ability {
 
 	@Override
 	protected void finish() {
-		affectedEnemies.remove();
-		affectedPotions.remove();
+		for (int i = 0; i < affectedPotions.size(); i++) {
+			final Image potionImage = affectedPotions.get(i);
+			potionImage.remove();
+			TweenEngine.I.cancel(potionImage);
+			potionImages.free(potionImage);
+		}
+		for (int i = 0; i < affectedEnemies.size(); i++) {
+			final SharedAnimationImage animation = affectedEnemies.get(i);
+			animation.remove();
+			TweenEngine.I.cancel(animation);
+			enemyImages.free(animation);
+		}
 		affectedPotions.clear();
 		affectedEnemies.clear();
 		effect.getParent().removeActor(effect);
@@ -8,16 +8,15 @@ import com.badlogic.gdx.graphics.g2d.Animation;
 import com.badlogic.gdx.math.Interpolation;
 import com.badlogic.gdx.math.Rectangle;
 import com.badlogic.gdx.math.Vector2;
-import com.badlogic.gdx.scenes.scene2d.actions.Actions;
-import com.badlogic.gdx.scenes.scene2d.actions.MoveToAction;
-import com.badlogic.gdx.scenes.scene2d.actions.SequenceAction;
 import com.badlogic.gdx.utils.Align;
 import com.nGame.utils.scene2d.AnimatedDrawable;
 import com.nGame.utils.scene2d.AnimatedImage;
 import com.peppercarrot.runninggame.stages.WorldStage;
 import com.peppercarrot.runninggame.utils.Assets;
-import com.peppercarrot.runninggame.utils.CollisionUtil;
+import com.peppercarrot.runninggame.utils.Callback;
 import com.peppercarrot.runninggame.utils.Constants;
+import com.peppercarrot.runninggame.utils.TweenEngine;
+import com.peppercarrot.runninggame.world.collision.HitboxCache;
 import com.peppercarrot.runninggame.world.collision.IEnemyCollisionAwareActor;
 
 /**
@@ -43,59 +42,75 @@ public class CarrotCharge extends Ability {
 
 		public boolean jumpToNext = false;
 		private Vector2 destination = new Vector2(); //Movement destination
-		MoveToAction moveTo;
+		private static final float JUMP_DURATION = 0.4f;
 		Runner runner;
+		private final HitboxCache hitbox = new HitboxCache();
+		private final Rectangle tempRect = new Rectangle();
+
+		/**
+		 * Reached the current enemy, jump to the next one
+		 */
+		private final Callback reachedEnemy = new Callback() {
+			@Override
+			public void invoke() {
+				jumpToNext = true;
+			}
+		};
+
+		/**
+		 * Returned to Pepper
+		 */
+		private final Callback reachedRunner = new Callback() {
+			@Override
+			public void invoke() {
+				// finished effect, ends the ability
+				CarrotCharge.this.cancel();
+			}
+		};
 
 		public Effect(Runner runner) {
 			super(new AnimatedDrawable(
 					new Animation(0.06f, Assets.I.getRegions("carrot_run"), Animation.PlayMode.LOOP)));
 			setOrigin(Align.center);
 			this.runner = runner;
-			moveTo = Actions.action(MoveToAction.class);
-			moveTo.setPosition(0, 0);
-			moveTo.setDuration(0.4f);
-			moveTo.setInterpolation(Interpolation.pow2);
+		}
+
+		@Override
+		protected void positionChanged() {
+			super.positionChanged();
+			hitbox.invalidate();
+		}
+
+		@Override
+		protected void sizeChanged() {
+			super.sizeChanged();
+			// Called by the constructor of the image, before the cache exists
+			if (hitbox != null) {
+				hitbox.invalidate();
+			}
 		}
 
 		@Override
 		public void retrieveHitbox(Rectangle rectangle) {
-			CollisionUtil.retrieveHitbox(this, rectangle);
+			hitbox.retrieve(this, rectangle);
 		}
 
 		private void jumpToEnemy() {
 			jumpToNext = false;
 			if (nearEnemies.size() > counter){
 				counter ++; //jumping, so increase this
-	        	clearActions();
+				TweenEngine.I.cancel(this);
 				//Jump to next enemy
-				SequenceAction seq = new SequenceAction();
-				moveTo.reset();
 				updateDestinationTowardsCurrentEnemy();
-				seq.addAction(moveTo);
-				seq.addAction(Actions.run(new Runnable() {
-			        @Override
-			        public void run() {
-			        	jumpToNext = true;
-			        	clearActions();
-			        }
-			    }));
-				this.addAction(seq);
+				TweenEngine.I.moveTo(this, destination.x, destination.y, JUMP_DURATION, Interpolation.pow2,
+						reachedEnemy);
 				mirrorIfNeeded(destination.x);
 			} else {
 				// Return back to Pepper
-				clearActions();
-				SequenceAction seq = new SequenceAction();
-				moveTo.reset();
+				TweenEngine.I.cancel(this);
 				updateDestinationTowardsRunner();
-				seq.addAction(moveTo);
-				seq.addAction(Actions.run(new Runnable() {
-					@Override
-					public void run() {
-						// finished effect, so set this false
-						setVisible(false);
-					}
-				}));
-				this.addAction(seq);
+				TweenEngine.I.moveTo(this, destination.x, destination.y, JUMP_DURATION, Interpolation.pow2,
+						reachedRunner);
 				mirrorIfNeeded(Constants.OFFSET_TO_EDGE);
 			}
 		}
@@ -113,7 +128,7 @@ public class CarrotCharge extends Ability {
 		}
 
 		private void updateDestinationForMovement() {
-			//Update moveTo destinations
+			//Update tween destinations
 			if (nearEnemies.size() > counter && counter > 0) {
 				//Is currently moving towards an enemy
 				updateDestinationTowardsCurrentEnemy();
@@ -125,16 +140,19 @@ public class CarrotCharge extends Ability {
 		}
 
 		private void updateDestinationTowardsCurrentEnemy() {
-			Rectangle tempRect = new Rectangle();
 			//counter-1 needed, because it stores number of jumps
 			nearEnemies.get(counter-1).retrieveHitbox(tempRect);
 			destination.set(tempRect.x, tempRect.y);
-			moveTo.setPosition(destination.x, destination.y);
+			retargetMovement();
 		}
 
 		private void updateDestinationTowardsRunner() {
 			destination.set(Constants.OFFSET_TO_EDGE, runner.getY());
-			moveTo.setPosition(destination.x, destination.y);
+			retargetMovement();
+		}
+
+		private void retargetMovement() {
+			TweenEngine.I.retarget(this, destination.x, destination.y);
 		}
 
 		@Override
@@ -167,6 +185,10 @@ public class CarrotCharge extends Ability {
 
 	private final List<Enemy> tempNearEnemies = new ArrayList<Enemy>();
 
+	private final Rectangle tempRect = new Rectangle();
+
+	private final Rectangle tempEnemyRect = new Rectangle();
+
 	public CarrotCharge(Runner runner, int maxEnergy) {
 		// no duration
 		// skill-duration ends when Carrot returns
@@ -178,12 +200,7 @@ public class CarrotCharge extends Ability {
 	@Override
 	protected void internalUpdate(float delta) {
 		if (isRunning()) {
-			if (!effect.isVisible()) {
-				// cancel when he reaches the destination
-				cancel();
-			} else {
-				effect.update();
-			}
+			effect.update();
 		}
 	}
 
@@ -194,6 +211,7 @@ public class CarrotCharge extends Ability {
 			worldStage.removeEnemyAwareActor(effect);
 		}
 
+		TweenEngine.I.cancel(effect);
 		effect.setVisible(false);
 		effect.counter = 0;
 		effect.jumpToNext = false;
@@ -205,18 +223,17 @@ public class CarrotCharge extends Ability {
 		this.worldStage = worldStage;
 		final Runner runner = getRunner();
 		effect.nearEnemies.clear();
-		final Rectangle tempRect = new Rectangle();
 		runner.retrieveHitbox(tempRect);
 
 		// Get near enemies
 		worldStage.getLevelStream().getEnemiesNear(Constants.OFFSET_TO_EDGE, Constants.VIRTUAL_HEIGHT / 2 + tempRect.y,
 				RADIUS, tempNearEnemies);
 		int counter = 0;
-		for (final Enemy enemy : tempNearEnemies) {
+		for (int i = 0; i < tempNearEnemies.size(); i++) {
+			final Enemy enemy = tempNearEnemies.get(i);
 			if (enemy.isAlive()) {
-				Rectangle enemyRect = new Rectangle();
-				enemy.retrieveHitbox(enemyRect);
-				if (enemyRect.x > Constants.OFFSET_TO_EDGE) { //if still on screen and in front of player
+				enemy.retrieveHitbox(tempEnemyRect);
+				if (tempEnemyRect.x > Constants.OFFSET_TO_EDGE) { //if still on screen and in front of player
 					counter++;
 					if (counter <= effect.times) {
 						effect.nearEnemies.add(enemy);
@@ -237,7 +254,7 @@ public class CarrotCharge extends Ability {
 		effect.setX(runner.pet.getX());
 		effect.setY(runner.getY());
 
-		worldStage.addActor(effect);
+		worldStage.addEffect(effect);
 		runner.pet.setVisible(false);
 		worldStage.addEnemyAwareActor(effect);
 
@@ -1,81 +1,124 @@
 package com.peppercarrot.runninggame.entities;
 
 import com.badlogic.gdx.graphics.g2d.Animation;
-import com.badlogic.gdx.graphics.g2d.TextureRegion;
 import com.badlogic.gdx.math.Rectangle;
-import com.badlogic.gdx.scenes.scene2d.ui.Image;
-import com.badlogic.gdx.utils.Align;
-import com.nGame.utils.scene2d.AnimatedDrawable;
-import com.nGame.utils.scene2d.AnimatedImage;
-import com.peppercarrot.runninggame.utils.Assets;
-import com.peppercarrot.runninggame.utils.CollisionUtil;
+import com.badlogic.gdx.utils.Pool.Poolable;
+import com.peppercarrot.runninggame.utils.AnimationRegistry;
+import com.peppercarrot.runninggame.utils.SharedAnimationImage;
+import com.peppercarrot.runninggame.world.EntityStore;
+import com.peppercarrot.runninggame.world.collision.IHitBoxActor;
 
 /**
- * Enemy.
+ * Enemy. The state and the bounds are stored in the {@link EntityStore} of the
+ * segment, this actor only draws them. The animations are shared by all
+ * enemies of a type, see {@link AnimationRegistry}, and resolved once per
+ * type, see {@link Graphics}.
  * 
  * @author WinterLicht
  *
  */
-public class Enemy extends Image {
-	public State currState = State.IDLE;
-	// Animations
-	AnimatedImage idleAnim;
-	AnimatedImage dyingAnim;
+public class Enemy extends SharedAnimationImage implements Poolable, IHitBoxActor {
+	/**
+	 * Animations of an enemy type, resolved once and shared by all enemies
+	 * of the type.
+	 */
+	public static class Graphics {
+		private final String type;
+		private final int idleAnimation;
+		private final int dyingAnimation;
 
-	enum State {
-		IDLE, DYING;
+		public Graphics(String type) {
+			this.type = type;
+			idleAnimation = AnimationRegistry.I.register(type + "-idle", 0.099f, Animation.PlayMode.LOOP);
+			dyingAnimation = AnimationRegistry.I.register(type + "-death", 0.07f, Animation.PlayMode.NORMAL);
+		}
 	}
 
-	public Enemy(String name) {
-		super(new TextureRegion(Assets.I.atlas.findRegion(name + "-idle")));
+	private final String type;
+	private EntityStore store;
+	private int index;
+	// Animations
+	private final int idleAnimation;
+	private final int dyingAnimation;
+
+	public Enemy(Graphics graphics) {
+		super(graphics.idleAnimation);
 		setName("enemy");
-		// Load Animations
-		idleAnim = new AnimatedImage(new AnimatedDrawable(
-				new Animation(0.099f, Assets.I.getRegions(name + "-idle"), Animation.PlayMode.LOOP)));
-		idleAnim.setOrigin(Align.center);
-		dyingAnim = new AnimatedImage(new AnimatedDrawable(
-				new Animation(0.07f, Assets.I.getRegions(name + "-death"), Animation.PlayMode.NORMAL)));
-		dyingAnim.setVisible(false);
-		dyingAnim.setOrigin(Align.center);
+		type = graphics.type;
+		idleAnimation = graphics.idleAnimation;
+		dyingAnimation = graphics.dyingAnimation;
+	}
+
+	/**
+	 * Binds this view to an entry of the entity store of its segment and
+	 * moves it to the position of the entry.
+	 * 
+	 * @param store
+	 *            store of the segment
+	 * @param index
+	 *            index of the entry
+	 */
+	public void bind(EntityStore store, int index) {
+		this.store = store;
+		this.index = index;
+		setPosition(store.getX(index), store.getY(index));
+		setAnimation(idleAnimation);
 	}
 
 	/**
 	 * Sets also image invisible.
 	 */
 	public void die() {
-		dyingAnim.setVisible(true);
-		dyingAnim.reset();
-		currState = State.DYING;
+		setAnimation(dyingAnimation);
+		store.setState(index, EntityStore.DYING);
+	}
+
+	/**
+	 * Brings a recycled enemy back to life.
+	 */
+	@Override
+	public void reset() {
+		clearActions();
+		setVisible(true);
+		setPosition(0, 0);
+		store = null;
+	}
+
+	/**
+	 * Name of the enemy type, used as prefix of the atlas regions.
+	 * 
+	 * @return type name
+	 */
+	public String getType() {
+		return type;
+	}
+
+	/**
+	 * Death animation of the enemy type, see {@link AnimationRegistry}.
+	 * 
+	 * @return id of the animation
+	 */
+	public int getDyingAnimation() {
+		return dyingAnimation;
 	}
 
 	public boolean isAlive() {
-		return (currState != State.DYING);
+		return store.isActive(index);
 	}
 
 	@Override
 	public void act(float delta) {
 		super.act(delta);
-		switch (currState) {
-		case DYING:
-			dyingAnim.act(delta);
-			setDrawable(dyingAnim.getDrawable());
-			// FIXME: why isAnimationFinished always false??
-			/*
-			 * if (dyingAnim.getAnimatedDrawable().getAnimation().
-			 * isAnimationFinished(delta)){ System.out.println(
-			 * "enemy death animation finished"); }
-			 */
-			break;
-		case IDLE:
-			idleAnim.act(delta);
-			setDrawable(idleAnim.getDrawable());
-			break;
-		default:
-			break;
+		if (store.getState(index) == EntityStore.DYING && isAnimationFinished()) {
+			// Dead enemies are neither acted nor drawn anymore, the segment
+			// still owns them until it is freed
+			store.setState(index, EntityStore.RETIRED);
+			remove();
 		}
 	}
 
+	@Override
 	public void retrieveHitbox(Rectangle rectangle) {
-		CollisionUtil.retrieveHitbox(this, rectangle);
+		store.retrieveBounds(index, rectangle);
 	}
 }
@@ -36,7 +36,8 @@ public abstract class Pet extends Group {
 	public Pet(String name, Runner runner) {
 		this.name = name;
 		owner = runner;
-		petImage = new Image(new TextureRegion(Assets.I.atlas.findRegion(name + "_run")));
+		petImage = new Image(
+				new TextureRegion(Assets.I.regions.getRegion(Assets.I.regions.getHandle(name + "_run"))));
 		addActor(petImage);
 		setOrigin(Align.center);
 	}
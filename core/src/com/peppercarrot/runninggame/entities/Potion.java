@@ -1,52 +1,117 @@
 package com.peppercarrot.runninggame.entities;
 
 import com.badlogic.gdx.graphics.g2d.Animation;
-import com.badlogic.gdx.graphics.g2d.TextureRegion;
 import com.badlogic.gdx.math.Rectangle;
 import com.badlogic.gdx.scenes.scene2d.Group;
 import com.badlogic.gdx.scenes.scene2d.ui.Image;
-import com.nGame.utils.scene2d.AnimatedDrawable;
-import com.nGame.utils.scene2d.AnimatedImage;
+import com.badlogic.gdx.utils.Pool.Poolable;
+import com.peppercarrot.runninggame.utils.AnimationRegistry;
 import com.peppercarrot.runninggame.utils.Assets;
-import com.peppercarrot.runninggame.utils.CollisionUtil;
+import com.peppercarrot.runninggame.utils.SharedAnimationImage;
+import com.peppercarrot.runninggame.world.EntityStore;
+import com.peppercarrot.runninggame.world.collision.IHitBoxActor;
 
-public class Potion extends Group {
+public class Potion extends Group implements Poolable, IHitBoxActor {
 	public enum Color {
 		ORANGE, GREEN, BLUE;
 	}
 
+	/**
+	 * Region and animation of a potion color, resolved once and shared by
+	 * all potions of the color.
+	 */
+	public static class Graphics {
+		private final String colorName;
+		private Color type;
+		private final int potionRegion;
+		private final int sparklingAnimation;
+
+		public Graphics(String color) {
+			colorName = color;
+			potionRegion = Assets.I.regions.getHandle("potion_" + color);
+			sparklingAnimation = AnimationRegistry.I.register("sparkling", 0.14f, Animation.PlayMode.LOOP);
+			switch (color) {
+			case "orange":
+				type = Potion.Color.ORANGE;
+				break;
+			case "green":
+				type = Potion.Color.GREEN;
+				break;
+			case "blue":
+				type = Potion.Color.BLUE;
+				break;	
+			default:
+				System.out.println("not valid color");
+				break;
+			}
+		}
+	}
+
 	public Color type;
-	AnimatedImage sparkling;
+	private final String colorName;
+	private EntityStore store;
+	private int index;
+	SharedAnimationImage sparkling;
 	Image potionImage;
 
-	public Potion(String color) {
-		potionImage = new Image(new TextureRegion(Assets.I.atlas.findRegion("potion_"+color)));
-		sparkling = new AnimatedImage(new AnimatedDrawable(new Animation(0.14f, Assets.I.getRegions("sparkling"), Animation.PlayMode.LOOP)));
-		switch (color) {
-		case "orange":
-			type = Potion.Color.ORANGE;
-			break;
-		case "green":
-			type = Potion.Color.GREEN;
-			break;
-		case "blue":
-			type = Potion.Color.BLUE;
-			break;	
-		default:
-			System.out.println("not valid color");
-			break;
-		}
+	public Potion(Graphics graphics) {
+		colorName = graphics.colorName;
+		type = graphics.type;
+		potionImage = new Image(Assets.I.regions.getRegion(graphics.potionRegion));
+		sparkling = new SharedAnimationImage(graphics.sparklingAnimation);
 		addActor(potionImage);
 		addActor(sparkling);
 		setWidth(potionImage.getWidth());
 		setHeight(potionImage.getHeight());
 	}
 
+	/**
+	 * Binds this view to an entry of the entity store of its segment and
+	 * moves it to the position of the entry.
+	 * 
+	 * @param store
+	 *            store of the segment
+	 * @param index
+	 *            index of the entry
+	 */
+	public void bind(EntityStore store, int index) {
+		this.store = store;
+		this.index = index;
+		setPosition(store.getX(index), store.getY(index));
+	}
+
+	/**
+	 * Removes the potion from the stage, it is neither acted nor drawn
+	 * anymore. The segment still owns it until it is freed.
+	 */
 	public void collected() {
+		store.setState(index, EntityStore.RETIRED);
 		setVisible(false);
+		remove();
+	}
+
+	/**
+	 * Makes a recycled potion collectable again.
+	 */
+	@Override
+	public void reset() {
+		clearActions();
+		setVisible(true);
+		setPosition(0, 0);
+		store = null;
+	}
+
+	/**
+	 * Color as defined in the level, used as suffix of the atlas region.
+	 * 
+	 * @return color name
+	 */
+	public String getColorName() {
+		return colorName;
 	}
 
+	@Override
 	public void retrieveHitbox(Rectangle rectangle) {
-		CollisionUtil.retrieveHitbox(this, rectangle);
+		store.retrieveBounds(index, rectangle);
 	}
 }
@@ -1,9 +1,10 @@
 package com.peppercarrot.runninggame.entities;
 
-import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import java.util.ArrayList;
+import java.util.List;
+
 import com.badlogic.gdx.math.Rectangle;
 import com.badlogic.gdx.math.Vector2;
-import com.badlogic.gdx.scenes.scene2d.Actor;
 import com.badlogic.gdx.scenes.scene2d.Group;
 import com.badlogic.gdx.scenes.scene2d.actions.Actions;
 import com.badlogic.gdx.scenes.scene2d.ui.Image;
@@ -11,7 +12,7 @@ import com.badlogic.gdx.utils.Align;
 import com.peppercarrot.runninggame.entities.Runner.State;
 import com.peppercarrot.runninggame.stages.WorldStage;
 import com.peppercarrot.runninggame.utils.Assets;
-import com.peppercarrot.runninggame.utils.CollisionUtil;
+import com.peppercarrot.runninggame.world.collision.HitboxCache;
 import com.peppercarrot.runninggame.world.collision.IEnemyCollisionAwareActor;
 
 /**
@@ -30,13 +31,24 @@ public class ProjectileAttack extends Ability {
 		private boolean moveUp = true; // helper
 		Vector2 origin = new Vector2(); // original position
 		private Vector2 positionNotRot = new Vector2(); // Position, if direction would not be rotated 
+		private final Vector2 rotatedPosition = new Vector2(); // Reused result of rotatePoint
 		float angle; // rotation of movement direction
+		private final HitboxCache hitbox = new HitboxCache();
 		//TODO: maybe range of attack?
 
-		public Projectile(float angle) {
-			Image image1 = new Image(new TextureRegion(Assets.I.atlas.findRegion("projectile1")));
+		/**
+		 * @param angle
+		 *            rotation of movement direction
+		 * @param region1
+		 *            handle of the front image, see
+		 *            {@link com.peppercarrot.runninggame.utils.RegionRegistry#getHandle(String)}
+		 * @param region2
+		 *            handle of the back image
+		 */
+		public Projectile(float angle, int region1, int region2) {
+			Image image1 = new Image(Assets.I.regions.getRegion(region1));
 			image1.setOrigin(Align.center);
-			Image image2 = new Image(new TextureRegion(Assets.I.atlas.findRegion("projectile2")));
+			Image image2 = new Image(Assets.I.regions.getRegion(region2));
 			image2.setOrigin(Align.center);
 			setHeight(image1.getHeight());
 			setWidth(image1.getWidth());
@@ -47,9 +59,21 @@ public class ProjectileAttack extends Ability {
 			addAction(Actions.forever(Actions.rotateBy(360f, 0.3f)));
 		}
 
+		@Override
+		protected void positionChanged() {
+			super.positionChanged();
+			hitbox.invalidate();
+		}
+
+		@Override
+		protected void sizeChanged() {
+			super.sizeChanged();
+			hitbox.invalidate();
+		}
+
 		@Override
 		public void retrieveHitbox(Rectangle rectangle) {
-			CollisionUtil.retrieveHitbox(this, rectangle);
+			hitbox.retrieve(this, rectangle);
 		}
 
 		@Override
@@ -84,8 +108,8 @@ public class ProjectileAttack extends Ability {
 					moveUp = true;
 				}
 				// Rotate calculated position
-				Vector2 v = rotatePoint(positionNotRot, origin, angle);
-				setPosition(v.x, v.y);
+				rotatePoint(positionNotRot, origin, angle, rotatedPosition);
+				setPosition(rotatedPosition.x, rotatedPosition.y);
 			}
 		}
 
@@ -103,17 +127,18 @@ public class ProjectileAttack extends Ability {
 		 * @param point
 		 * @param rotationCenter
 		 * @param angle
-		 * @return Rotated point
+		 * @param result
+		 *            receives the rotated point
 		 */
-		private Vector2 rotatePoint(Vector2 point, Vector2 rotationCenter, float angle){
+		private void rotatePoint(Vector2 point, Vector2 rotationCenter, float angle, Vector2 result){
             angle = (float) (angle * (Math.PI/180f));
             float rotatedX = (float) (Math.cos(angle) * (point.x - rotationCenter.x) - Math.sin(angle) * (point.y-rotationCenter.y) + rotationCenter.x);
             float rotatedY = (float) (Math.sin(angle) * (point.x - rotationCenter.x) + Math.cos(angle) * (point.y - rotationCenter.y) + rotationCenter.y);
-            return new Vector2(rotatedX,rotatedY);
+            result.set(rotatedX,rotatedY);
         }
 	}
 
-	private final Group projectiles = new Group(); // All projectiles stored here.
+	private final List<Projectile> projectiles = new ArrayList<Projectile>(); // All projectiles stored here.
 	private int amount = 3; //TODO: in constructor!
 	WorldStage worldStage;
 	float spread = 40; //Spread angle. Make it 0 and amount > 1, and get projectile percing "amount"-times
@@ -122,11 +147,13 @@ public class ProjectileAttack extends Ability {
 	public ProjectileAttack(Runner runner, int maxEnergy, float duration) {
 		super(runner, maxEnergy, duration);
 
+		final int region1 = Assets.I.regions.getHandle("projectile1");
+		final int region2 = Assets.I.regions.getHandle("projectile2");
 		for (int i = 0; i < amount; i++) {
 			// Distribute amount of projectiles inside the spread
-			Projectile effect = new Projectile(spread-i*(2*spread/(amount-1)));
+			Projectile effect = new Projectile(spread-i*(2*spread/(amount-1)), region1, region2);
 			effect.setVisible(false);
-			projectiles.addActor(effect);
+			projectiles.add(effect);
 		}
 	}
 
@@ -136,9 +163,11 @@ public class ProjectileAttack extends Ability {
 
 	@Override
 	protected void finish() {
-		for (Actor projectile : projectiles.getChildren()) {
-			worldStage.removeEnemyAwareActor((IEnemyCollisionAwareActor) projectile);
-			((Projectile)projectile).active = false;
+		for (int i = 0; i < projectiles.size(); i++) {
+			final Projectile projectile = projectiles.get(i);
+			worldStage.removeEnemyAwareActor(projectile);
+			projectile.active = false;
+			projectile.remove();
 		}
 		setAllProjVisible(false);
 		final Runner runner = getRunner();
@@ -167,14 +196,16 @@ public class ProjectileAttack extends Ability {
 		final Runner runner = getRunner();
 		runner.setAttacking(); //TODO: reset attack-Animation earlier
 		//runner.addActor(projectiles);
-		worldStage.addActor(projectiles);
 		setAllProjVisible(true);
-		for (Actor projectile : projectiles.getChildren()) {
+		for (int i = 0; i < projectiles.size(); i++) {
+			final Projectile projectile = projectiles.get(i);
+			// Projectiles are added one by one, so each one is culled
+			worldStage.addEffect(projectile);
 			// Reset position of projectiles
 			projectile.setX(runner.runnerImage.getWidth()/2+runner.getX());
 			projectile.setY(runner.runnerImage.getHeight()/2+runner.getY());
-			((Projectile) projectile).startMoving();
-			worldStage.addEnemyAwareActor((IEnemyCollisionAwareActor) projectile);
+			projectile.startMoving();
+			worldStage.addEnemyAwareActor(projectile);
 		}
 	}
 
@@ -184,8 +215,8 @@ public class ProjectileAttack extends Ability {
 	 * @param visibility
 	 */
 	public void setAllProjVisible(boolean visibility) {
-		for (Actor projectile : projectiles.getChildren()) {
-			projectile.setVisible(visibility);
+		for (int i = 0; i < projectiles.size(); i++) {
+			projectiles.get(i).setVisible(visibility);
 		}
 	}
 }
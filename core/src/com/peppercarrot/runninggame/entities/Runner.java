@@ -3,13 +3,14 @@ package com.peppercarrot.runninggame.entities;
 import com.badlogic.gdx.graphics.g2d.TextureRegion;
 import com.badlogic.gdx.math.Rectangle;
 import com.badlogic.gdx.scenes.scene2d.Group;
-import com.badlogic.gdx.scenes.scene2d.actions.Actions;
-import com.badlogic.gdx.scenes.scene2d.actions.SequenceAction;
 import com.badlogic.gdx.scenes.scene2d.ui.Image;
 import com.badlogic.gdx.utils.Align;
 import com.nGame.utils.scene2d.AnimatedImage;
 import com.peppercarrot.runninggame.utils.Assets;
+import com.peppercarrot.runninggame.utils.Callback;
 import com.peppercarrot.runninggame.utils.Constants;
+import com.peppercarrot.runninggame.utils.TimerWheel;
+import com.peppercarrot.runninggame.utils.TimerWheel.Timer;
 import com.peppercarrot.runninggame.world.Platform;
 import com.peppercarrot.runninggame.world.collision.IEnemyCollisionAwareActor;
 import com.peppercarrot.runninggame.world.collision.IPlatformCollisionAwareActor;
@@ -28,10 +29,14 @@ public abstract class Runner extends Group
 	boolean stunned = false;
 	public State currState = State.RUNNING;
 	public Pet pet;
+	/** Vertical speed in pixel per simulation step. */
 	int speedY = 0;
-	/** Vertical speed in pixel. */
+	/** Maximum speed when jumping in pixel per simulation step. */
 	int maxJumpSpeed = 26;
-	/** Maximum speed when jumping in pixel */
+	/** Y-position before the last simulation step. */
+	float previousY;
+	/** Distance of the feet to the bottom of the sprite in pixel. */
+	static final float FEET_OFFSET = 16;
 
 	public Image runnerImage;
 	AnimatedImage runningAnim;
@@ -46,6 +51,16 @@ public abstract class Runner extends Group
 	public Ability ability3;
 	public Ability ability4;
 
+	/**
+	 * Ends the stun, see {@link TimerWheel}
+	 */
+	private final Timer endStun = new Timer(new Callback() {
+		@Override
+		public void invoke() {
+			if (stunned) stunned = false;
+		}
+	});
+
 	/**
 	 * Possible states.
 	 */
@@ -57,7 +72,8 @@ public abstract class Runner extends Group
 
 	public Runner(String name) {
 		this.name = name;
-		runnerImage = new Image(new TextureRegion(Assets.I.atlas.findRegion(name + "_run")));
+		runnerImage = new Image(
+				new TextureRegion(Assets.I.regions.getRegion(Assets.I.regions.getHandle(name + "_run"))));
 		addActor(runnerImage);
 		initAbilities();
 		initAnimations();
@@ -88,14 +104,10 @@ public abstract class Runner extends Group
 	 * @param y
 	 */
 	public void land(float y) {
-		// Player lands only if his speed is small enough
-		final int speedOffset = 8;
-		if (speedY < speedOffset) {
-			setY(y);
-			speedY = 0;
-			setRunnig();
-			pet.land();
-		}
+		setY(y);
+		speedY = 0;
+		setRunnig();
+		pet.land();
 	}
 
 	@Override
@@ -150,20 +162,15 @@ public abstract class Runner extends Group
 		if (stunned) {
 			runnerImage.setDrawable(hitAnim.getDrawable());
 		}
-		// Gravity is 1 pixel
+		// Gravity is 1 pixel per simulation step, act is called once per step
 		speedY -= 1;
 		// Move down
-		final float oldYPos = getY();
-		//FIXME:Tunneling, see also processPlatforms in WorldStage
-		//Currently: simply cap falling speed
-		if (speedY > -maxJumpSpeed) {
-			setY(getY() + speedY);
-		} else {
-			//No infinite acceleration
-			setY(getY()-maxJumpSpeed);
-		}
+		// The platforms are swept from the previous position, so any speed is
+		// fine, see processPlatforms in WorldStage
+		previousY = getY();
+		setY(getY() + speedY);
 		pet.updatePosition(delta);
-		if (getY() < oldYPos) {
+		if (getY() < previousY) {
 			// Player is falling, if his y-position is lowered
 			// and he was previously running.
 			setFalling();
@@ -269,19 +276,11 @@ public abstract class Runner extends Group
 	}
 
 	public void setStunned() {
-		SequenceAction stunAction = new SequenceAction();
-		//TODO: stun duration depending on enemy/collider object
-		stunAction.addAction(Actions.delay(0.08f));
-		stunAction.addAction(Actions.run(new Runnable() {
-	        @Override
-	        public void run() {
-	        	if (stunned) stunned = false;
-	        }
-	    }));
 		stunned = true;
 		hitAnim.reset();
-		hitAnim.clearActions();
-		hitAnim.addAction(stunAction);
+		// A new hit restarts the stun
+		//TODO: stun duration depending on enemy/collider object
+		TimerWheel.I.schedule(endStun, 0.08f);
 		pet.setStunned();
 	}
 	
@@ -337,7 +336,12 @@ public abstract class Runner extends Group
 
 	@Override
 	public float getPlatformCollisionY() {
-		return getY();
+		return getY() + FEET_OFFSET;
+	}
+
+	@Override
+	public float getPlatformCollisionPreviousY() {
+		return previousY + FEET_OFFSET;
 	}
 	
 	@Override
@@ -347,9 +351,8 @@ public abstract class Runner extends Group
 
 	@Override
 	public boolean onHitPlatform(Platform platform, float platformHitTop) {
-		//Offset so player lands with feet on the platform ground
-		float offset = 16;
-		land(platformHitTop-offset);
+		//Player lands with feet on the platform ground
+		land(platformHitTop - FEET_OFFSET);
 		return true;
 	}
 }
@@ -4,7 +4,7 @@ import com.badlogic.gdx.math.Rectangle;
 import com.badlogic.gdx.scenes.scene2d.Actor;
 import com.peppercarrot.runninggame.entities.Runner.State;
 import com.peppercarrot.runninggame.stages.WorldStage;
-import com.peppercarrot.runninggame.utils.CollisionUtil;
+import com.peppercarrot.runninggame.world.collision.HitboxCache;
 import com.peppercarrot.runninggame.world.collision.IEnemyCollisionAwareActor;
 
 /**
@@ -20,14 +20,28 @@ public class SweepAttack extends Ability {
 
 	public static class Effect extends Actor implements IEnemyCollisionAwareActor {
 
+		private final HitboxCache hitbox = new HitboxCache();
+
 		public Effect() {
 			setHeight(250);
 			setWidth(250);
 		}
 
+		@Override
+		protected void positionChanged() {
+			super.positionChanged();
+			hitbox.invalidate();
+		}
+
+		@Override
+		protected void sizeChanged() {
+			super.sizeChanged();
+			hitbox.invalidate();
+		}
+
 		@Override
 		public void retrieveHitbox(Rectangle rectangle) {
-			CollisionUtil.retrieveHitbox(this, rectangle);
+			hitbox.retrieve(this, rectangle);
 		}
 
 		@Override
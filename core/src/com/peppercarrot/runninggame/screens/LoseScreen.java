@@ -25,7 +25,7 @@ public class LoseScreen extends ScreenAdapter {
 	boolean goToStartScreen = false;
 
 	public LoseScreen() {
-		stage = new Stage(PaCGame.getInstance().viewport);
+		stage = new Stage(PaCGame.getInstance().viewport, PaCGame.getInstance().batch);
 		// set up stage
 		final Table table = new Table(Assets.I.skin);
 		table.setFillParent(true);
@@ -86,6 +86,11 @@ public class LoseScreen extends ScreenAdapter {
 		stage.getViewport().update(width, height, true);
 	}
 
+	@Override
+	public void dispose() {
+		stage.dispose();
+	}
+
 	/**
 	 * Fade out animation that takes fadeOutTime long.
 	 * 
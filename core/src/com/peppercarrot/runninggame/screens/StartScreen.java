@@ -43,4 +43,9 @@ public class StartScreen extends ScreenAdapter {
 	public void resize(int width, int height) {
 		stage.getViewport().update(width, height, true);
 	}
+
+	@Override
+	public void dispose() {
+		stage.dispose();
+	}
 }
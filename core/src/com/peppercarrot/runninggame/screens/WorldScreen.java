@@ -12,6 +12,7 @@ import com.peppercarrot.runninggame.stages.WorldStage;
 import com.peppercarrot.runninggame.stages.WorldUiStage;
 import com.peppercarrot.runninggame.utils.Callback;
 import com.peppercarrot.runninggame.utils.Constants;
+import com.peppercarrot.runninggame.utils.SimulationClock;
 
 /**
  * Screen for actual game.
@@ -29,6 +30,12 @@ import com.peppercarrot.runninggame.utils.Constants;
  */
 public class WorldScreen extends ScreenAdapter {
 
+	/**
+	 * Simulation steps per rendered frame at most, slower frames slow down
+	 * the game instead of skipping collisions.
+	 */
+	private static final int MAX_STEPS_PER_FRAME = 8;
+
 	private boolean gamePaused = false;
 
 	private boolean gameStarted = false;
@@ -39,6 +46,8 @@ public class WorldScreen extends ScreenAdapter {
 
 	private final WorldUiStage ui;
 
+	private final SimulationClock clock = new SimulationClock(MAX_STEPS_PER_FRAME);
+
 	public WorldScreen() {
 		runner = new Pepper("pepper");
 
@@ -89,15 +98,15 @@ public class WorldScreen extends ScreenAdapter {
 	}
 
 	private void update(float delta) {
-		if (!gamePaused) {
-			stage.move(delta);
-		}
-
-		final boolean wasDying = runner.isDying();
-		stage.act(delta);
-		if (!gamePaused && !wasDying && runner.isDying()) {
-			switchToLoseScreen();
+		final int steps = clock.advance(delta);
+		for (int i = 0; i < steps; i++) {
+			final boolean wasDying = runner.isDying();
+			stage.step(!gamePaused);
+			if (!gamePaused && !wasDying && runner.isDying()) {
+				switchToLoseScreen();
+			}
 		}
+		stage.setInterpolationAlpha(clock.getAlpha());
 
 		ui.act(delta);
 	}
@@ -137,6 +146,12 @@ public class WorldScreen extends ScreenAdapter {
 		}
 	}
 
+	@Override
+	public void dispose() {
+		stage.dispose();
+		ui.dispose();
+	}
+
 	public void switchToLoseScreen() {
 		ui.disable();
 
@@ -6,9 +6,16 @@ import com.badlogic.gdx.scenes.scene2d.actions.Actions;
 import com.badlogic.gdx.scenes.scene2d.actions.SequenceAction;
 import com.peppercarrot.runninggame.PaCGame;
 
+/**
+ * Stage drawing with the shared batch of {@link PaCGame}, which is not
+ * disposed with the stage.
+ * 
+ * @author momsen
+ *
+ */
 public abstract class AbstractStage extends Stage {
 	public AbstractStage() {
-		super(PaCGame.getInstance().viewport);
+		super(PaCGame.getInstance().viewport, PaCGame.getInstance().batch);
 	}
 
 	public void fadeOut(boolean initiallyResetAlpha, float fadeOutTime, Runnable onFinish) {
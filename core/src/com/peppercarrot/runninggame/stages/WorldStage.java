@@ -3,23 +3,37 @@ package com.peppercarrot.runninggame.stages;
 import java.util.ArrayList;
 import java.util.List;
 
+import com.badlogic.gdx.Application;
 import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.graphics.OrthographicCamera;
+import com.badlogic.gdx.graphics.g2d.SpriteBatch;
 import com.badlogic.gdx.graphics.glutils.ShapeRenderer;
 import com.badlogic.gdx.graphics.glutils.ShapeRenderer.ShapeType;
 import com.badlogic.gdx.math.Rectangle;
 import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.scenes.scene2d.Actor;
+import com.badlogic.gdx.utils.TimeUtils;
 import com.badlogic.gdx.utils.viewport.FitViewport;
+import com.peppercarrot.runninggame.PaCGame;
 import com.peppercarrot.runninggame.entities.Enemy;
 import com.peppercarrot.runninggame.entities.Potion;
 import com.peppercarrot.runninggame.entities.Runner;
+import com.peppercarrot.runninggame.utils.AnimationRegistry;
 import com.peppercarrot.runninggame.utils.Constants;
+import com.peppercarrot.runninggame.utils.SimulationClock;
+import com.peppercarrot.runninggame.utils.TimerWheel;
+import com.peppercarrot.runninggame.utils.TweenEngine;
 import com.peppercarrot.runninggame.world.Background;
 import com.peppercarrot.runninggame.world.LevelStream;
 import com.peppercarrot.runninggame.world.Platform;
+import com.peppercarrot.runninggame.world.TileLayerCache;
+import com.peppercarrot.runninggame.world.ViewportCulling;
+import com.peppercarrot.runninggame.world.WorldLayers;
+import com.peppercarrot.runninggame.world.collision.HitboxCache;
 import com.peppercarrot.runninggame.world.collision.IEnemyCollisionAwareActor;
 import com.peppercarrot.runninggame.world.collision.IPlatformCollisionAwareActor;
 import com.peppercarrot.runninggame.world.collision.IPotionCollisionAwareActor;
+import com.peppercarrot.runninggame.world.collision.SweepAndPrune;
 
 /**
  * Contains game entities.
@@ -29,15 +43,22 @@ import com.peppercarrot.runninggame.world.collision.IPotionCollisionAwareActor;
  *
  */
 public class WorldStage extends AbstractStage {
+	private static final String LOG_TAG = WorldStage.class.getSimpleName();
+
+	/**
+	 * Number of frames over which the draw statistics are averaged
+	 */
+	private static final int DRAW_STATS_FRAMES = 120;
+
 	private final OrthographicCamera camera;
 
 	private final LevelStream levelStream;
 
 	private final Background background;
 
-	public final Runner runner;
+	private final WorldLayers layers;
 
-	private final ShapeRenderer debugCollisionShapeRenderer = new ShapeRenderer();
+	public final Runner runner;
 
 	private final float speed = 400.0f;
 
@@ -55,58 +76,212 @@ public class WorldStage extends AbstractStage {
 
 	private final Rectangle tempTargetRectangle = new Rectangle();
 
-	private final List<Enemy> tempEnemies = new ArrayList<Enemy>();
-
 	private final List<Platform> tempPlatforms = new ArrayList<Platform>();
 
+	private final List<Enemy> tempEnemies = new ArrayList<Enemy>();
+
 	private final List<Potion> tempPotions = new ArrayList<Potion>();
 
+	private final SweepAndPrune broadphase = new SweepAndPrune();
+
+	private final ViewportCulling culling = new ViewportCulling();
+
+	private int drawStatsFrames;
+
+	private long drawStatsNanos;
+
+	private int drawStatsBatchCalls;
+
+	private int drawStatsHitboxes;
+
+	/**
+	 * Scroll offset of the last simulation step
+	 */
+	private float lastStepScroll;
+
+	/**
+	 * Runner position before the last simulation step
+	 */
+	private float previousRunnerY;
+
+	/**
+	 * Interpolation factor between the last two simulation steps
+	 */
+	private float interpolationAlpha = 1;
+
 	public WorldStage(int virtualWidth, int virtualHeight, Runner runner) {
 		camera = new OrthographicCamera(virtualWidth, virtualHeight);
 		camera.setToOrtho(false, Constants.VIRTUAL_WIDTH, Constants.VIRTUAL_HEIGHT);
 		setViewport(new FitViewport(Constants.VIRTUAL_WIDTH, Constants.VIRTUAL_HEIGHT, camera));
 
+		// Tweens and timers of a previous world must not touch its actors
+		// anymore
+		TweenEngine.I.clear();
+		TimerWheel.I.clear();
+
 		background = new Background("testbg.png", virtualWidth, virtualHeight);
 		addActor(background);
 
-		levelStream = new LevelStream(camera, getBatch(), 0, virtualWidth, getRoot(),
-				runner);
+		layers = new WorldLayers(getRoot());
+
+		levelStream = new LevelStream(camera, 0, virtualWidth, layers);
 		levelStream.setY(Constants.OFFSET_TO_GROUND);
 		addActor(levelStream);
 
 		this.runner = runner;
-		addActor(runner);
-		addActor(runner.pet);
+		layers.getRunner().addActor(runner);
+		layers.getRunner().addActor(runner.pet);
 
 		enemyCollisionAwareActors.add(runner);
 		potionAwareActors.add(runner);
 		platformAwareActors.add(runner);
 	}
 
+	/**
+	 * Disposes the level data of this world. The batch is shared and stays.
+	 */
+	@Override
+	public void dispose() {
+		super.dispose();
+		levelStream.dispose();
+	}
+
 	public LevelStream getLevelStream() {
 		return levelStream;
 	}
 
-	public void move(float delta) {
-		final float offset = delta * speed * speedFactor;
+	/**
+	 * Runs a single simulation step of {@link SimulationClock#STEP}: scrolls
+	 * the world, moves all actors and processes the collisions. Can be called
+	 * many times per rendered frame.
+	 * 
+	 * @param scroll
+	 *            <code>false</code>, if the world should not scroll
+	 */
+	public void step(boolean scroll) {
+		HitboxCache.nextStep();
+		layers.beginStep();
+		AnimationRegistry.I.update(SimulationClock.STEP);
+		TweenEngine.I.update(SimulationClock.STEP);
+		TimerWheel.I.advance();
+		previousRunnerY = runner.getY();
+		lastStepScroll = 0;
+		if (scroll) {
+			move(SimulationClock.STEP);
+		}
+		act(SimulationClock.STEP);
+	}
+
+	private void move(float delta) {
+		final float effectiveSpeed = speed * speedFactor;
+		final float offset = delta * effectiveSpeed;
 		background.moveViewportLeft(offset);
-		background.setViewportY(runner.getY() - Constants.OFFSET_TO_GROUND);
+		levelStream.setScrollSpeed(effectiveSpeed);
 		levelStream.moveLeft(offset);
+		lastStepScroll = offset;
+	}
+
+	/**
+	 * Sets the interpolation factor for the next draw.
+	 * 
+	 * @param alpha
+	 *            factor between 0 (previous step) and 1 (last step), see
+	 *            {@link SimulationClock#getAlpha()}
+	 */
+	public void setInterpolationAlpha(float alpha) {
+		interpolationAlpha = alpha;
+	}
+
+	/**
+	 * Adds an actor of an ability to the effects layer, where it is culled
+	 * like the rest of the world.
+	 * 
+	 * @param actor
+	 *            actor with bounds in stage coordinates
+	 */
+	public void addEffect(Actor actor) {
+		layers.getEffects().addActor(actor);
 	}
 
+	/**
+	 * Draws the world between the last two simulation steps. The world layers
+	 * are offset only while drawing, so the simulation state is not touched.
+	 * Everything outside of the camera is culled.
+	 */
 	@Override
 	public void draw() {
+		final float remaining = 1 - interpolationAlpha;
+		final float scrollOffset = remaining * lastStepScroll;
+		final float runnerOffsetY = -remaining * (runner.getY() - previousRunnerY);
+		final float runnerY = runner.getY() + runnerOffsetY;
+		final float viewportX = background.getViewportX();
+
 		getViewport().update(Gdx.graphics.getWidth(), Gdx.graphics.getHeight());
 		camera.position.set(camera.viewportWidth / 2,
-				runner.getY() + camera.viewportHeight / 2 - Constants.OFFSET_TO_GROUND, 0);
-
+				runnerY + camera.viewportHeight / 2 - Constants.OFFSET_TO_GROUND, 0);
+		background.setViewportX(viewportX - scrollOffset);
+		background.setViewportY(runnerY - Constants.OFFSET_TO_GROUND);
+		layers.setInterpolationOffset(scrollOffset, runnerOffsetY);
+		layers.interpolateEffects(interpolationAlpha);
+
+		culling.setArea(camera);
+		levelStream.cull(culling);
+		layers.cull(culling);
+
+		final long start = TimeUtils.nanoTime();
+		final int batchCalls = getBatchRenderCalls();
 		super.draw();
+		measureDraw(TimeUtils.nanoTime() - start, getBatchRenderCalls() - batchCalls);
+
+		layers.setInterpolationOffset(0, 0);
+		layers.restoreEffects();
+		background.setViewportX(viewportX);
 
 		// debugRenderCollisionBounds();
 	}
 
+	private int getBatchRenderCalls() {
+		if (getBatch() instanceof SpriteBatch) {
+			return ((SpriteBatch) getBatch()).totalRenderCalls;
+		}
+		return 0;
+	}
+
+	/**
+	 * Logs the average CPU time, render calls and drawn and culled actors of
+	 * drawing the world and the hitbox recomputations of the simulation steps
+	 * per frame, and the currently pending timers.
+	 */
+	private void measureDraw(long nanos, int batchCalls) {
+		drawStatsFrames++;
+		drawStatsNanos += nanos;
+		drawStatsBatchCalls += batchCalls;
+		drawStatsHitboxes += HitboxCache.getRecomputations();
+		HitboxCache.resetRecomputations();
+
+		if (drawStatsFrames == DRAW_STATS_FRAMES) {
+			if (Gdx.app.getLogLevel() >= Application.LOG_DEBUG) {
+				Gdx.app.debug(LOG_TAG,
+						"Draw avg " + drawStatsNanos / drawStatsFrames / 1000 + "us, batch render calls "
+								+ (float) drawStatsBatchCalls / drawStatsFrames + ", tile cache render calls "
+								+ (float) TileLayerCache.getRenderCalls() / drawStatsFrames
+								+ ", actors drawn " + (float) culling.getDrawnActors() / drawStatsFrames
+								+ ", actors culled " + (float) culling.getCulledActors() / drawStatsFrames
+								+ ", hitbox recomputations " + (float) drawStatsHitboxes / drawStatsFrames
+								+ " per frame, pending timers " + TimerWheel.I.getPendingCount());
+			}
+			drawStatsFrames = 0;
+			drawStatsNanos = 0;
+			drawStatsBatchCalls = 0;
+			drawStatsHitboxes = 0;
+			TileLayerCache.resetRenderCalls();
+			culling.resetCounters();
+		}
+	}
+
 	@SuppressWarnings("unused")
 	private void debugRenderCollisionBounds() {
+		final ShapeRenderer debugCollisionShapeRenderer = PaCGame.getInstance().getShapeRenderer();
 		debugCollisionShapeRenderer.setProjectionMatrix(camera.combined);
 
 		levelStream.getPlatformsNear(runner.getX(), runner.getY(), runner.getPlatformCollisionWidth(), tempPlatforms);
@@ -159,83 +334,43 @@ public class WorldStage extends AbstractStage {
 	private void processCollisions() {
 		processPlatforms();
 
-		processEnemies();
-
-		processPotions();
+		processHitboxes();
 	}
 
 	private void processPlatforms() {
 		if (!platformAwareActors.isEmpty()) {
 
-			for (final IPlatformCollisionAwareActor actor : platformAwareActors) {
+			for (int i = 0; i < platformAwareActors.size(); i++) {
+				final IPlatformCollisionAwareActor actor = platformAwareActors.get(i);
 				final float x = actor.getPlatformCollisionX();
-				final float y = actor.getPlatformCollisionY();
 				final float actorsW = actor.getPlatformCollisionWidth();
 
-				levelStream.getPlatformsNear(x, y, actorsW, tempPlatforms);
-				for (final Platform platform : tempPlatforms) {
+				// First platform whose top the actors bottom crossed while
+				// moving down during the last step
+				final Platform platform = levelStream.findLanding(x, x + actorsW,
+						actor.getPlatformCollisionPreviousY(), actor.getPlatformCollisionY(), lastStepScroll);
+				if (platform != null) {
 					platform.retrieveAbsolutePosition(tempPlatformPosition);
-					// Check for collision
-					if (x < tempPlatformPosition.x + platform.getW() || x + actorsW > tempPlatformPosition.x) {
-						// First if platform intersects actors in x direction...
-						final float platformTop = tempPlatformPosition.y + platform.getH();
-
-						// Offset to the platforms top
-						final float offsetTop = 8;
-						final float offsetBottom = 20;
-						if (platformTop - offsetBottom < y && y < platformTop + offsetTop) {
-							// ...then if players bottom (y) is inside given
-							// offset-area
-							if (actor.onHitPlatform(platform, platformTop)) {
-								break;
-							}
-						}
-					}
+					actor.onHitPlatform(platform, tempPlatformPosition.y + platform.getH());
 				}
 			}
 		}
 	}
 
-	private void processEnemies() {
-		if (!enemyCollisionAwareActors.isEmpty()) {
-			for (final IEnemyCollisionAwareActor actor : enemyCollisionAwareActors) {
-				actor.retrieveHitbox(tempActorRectangle);
-
-				levelStream.getEnemiesNear(tempActorRectangle.x, tempActorRectangle.y, tempActorRectangle.width * 2,
-						tempEnemies);
-				for (final Enemy enemy : tempEnemies) {
-					enemy.retrieveHitbox(tempTargetRectangle);
-
-					if (tempActorRectangle.overlaps(tempTargetRectangle)) {
-						if (actor.onHitEnemy(enemy)) {
-							break;
-						}
-					}
-				}
-			}
+	/**
+	 * Collides all enemy and potion aware actors with the enemies and potions
+	 * in one sweep.
+	 */
+	private void processHitboxes() {
+		broadphase.clear();
+		for (int i = 0; i < enemyCollisionAwareActors.size(); i++) {
+			broadphase.addEnemyAwareActor(enemyCollisionAwareActors.get(i));
 		}
-	}
-
-	private void processPotions() {
-		if (!potionAwareActors.isEmpty()) {
-			for (final IPotionCollisionAwareActor actor : potionAwareActors) {
-				actor.retrieveHitbox(tempActorRectangle);
-
-				levelStream.getPotionsNear(tempActorRectangle.x, tempActorRectangle.y, tempActorRectangle.width * 2,
-						tempPotions);
-				for (final Potion potion : tempPotions) {
-					if (potion.isVisible()) {
-						potion.retrieveHitbox(tempTargetRectangle);
-
-						if (tempActorRectangle.overlaps(tempTargetRectangle)) {
-							if (actor.onHitPotion(potion)) {
-								break;
-							}
-						}
-					}
-				}
-			}
+		for (int i = 0; i < potionAwareActors.size(); i++) {
+			broadphase.addPotionAwareActor(potionAwareActors.get(i));
 		}
+		levelStream.addHitboxes(broadphase);
+		broadphase.process();
 	}
 
 	public void start() {
@@ -0,0 +1,140 @@
+package com.peppercarrot.runninggame.utils;
+
+import com.badlogic.gdx.graphics.g2d.Animation;
+import com.badlogic.gdx.graphics.g2d.Animation.PlayMode;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.FloatArray;
+import com.badlogic.gdx.utils.ObjectIntMap;
+
+/**
+ * Animations shared by all entities. Each animation is created once and has
+ * one clock, which is advanced once per simulation step, see
+ * {@link #update(float)}. Entities only store a phase offset to this clock
+ * and look up their current frame, so animating an entity costs nothing
+ * until it is drawn.
+ *
+ * @author momsen
+ *
+ */
+public enum AnimationRegistry {
+	I; // Singleton
+
+	private final ObjectIntMap<String> ids = new ObjectIntMap<String>();
+
+	private final Array<Animation> animations = new Array<Animation>();
+
+	private final FloatArray times = new FloatArray();
+
+	/**
+	 * Time after which a looping animation repeats, 0 for animations which
+	 * are played once. The clocks of looping animations are wrapped, so they
+	 * never lose precision.
+	 */
+	private final FloatArray periods = new FloatArray();
+
+	/**
+	 * Gets the id of an animation, which is created on first use. Should be
+	 * done once per entity type, not per entity.
+	 *
+	 * @param name
+	 *            name of the atlas regions, identifies the animation
+	 * @param frameDuration
+	 *            duration of each frame in seconds
+	 * @param playMode
+	 * @return id of the animation
+	 */
+	public int register(String name, float frameDuration, PlayMode playMode) {
+		int id = ids.get(name, -1);
+		if (id < 0) {
+			final Animation animation = new Animation(frameDuration,
+					Assets.I.regions.getFrames(Assets.I.regions.getHandle(name)), playMode);
+			id = animations.size;
+			animations.add(animation);
+			times.add(0);
+			periods.add(computePeriod(animation));
+			ids.put(name, id);
+		}
+		return id;
+	}
+
+	private static float computePeriod(Animation animation) {
+		final int frames = animation.getKeyFrames().length;
+		switch (animation.getPlayMode()) {
+		case LOOP:
+		case LOOP_REVERSED:
+		case LOOP_RANDOM:
+			return frames * animation.getFrameDuration();
+		case LOOP_PINGPONG:
+			return Math.max(1, frames * 2 - 2) * animation.getFrameDuration();
+		default:
+			return 0;
+		}
+	}
+
+	/**
+	 * Advances the clocks of all animations.
+	 *
+	 * @param delta
+	 *            time in seconds
+	 */
+	public void update(float delta) {
+		for (int i = 0; i < times.size; i++) {
+			final float period = periods.get(i);
+			float time = times.get(i) + delta;
+			if (period > 0 && time >= period) {
+				time %= period;
+			}
+			times.set(i, time);
+		}
+	}
+
+	/**
+	 * Gets the phase, which starts the animation with its first frame now.
+	 *
+	 * @param id
+	 *            id of the animation
+	 * @return phase offset
+	 */
+	public float getRestartPhase(int id) {
+		return -times.get(id);
+	}
+
+	/**
+	 * Gets the current frame of an animation.
+	 *
+	 * @param id
+	 *            id of the animation
+	 * @param phase
+	 *            phase offset of the entity
+	 * @return current frame
+	 */
+	public TextureRegion getKeyFrame(int id, float phase) {
+		return animations.get(id).getKeyFrame(getStateTime(id, phase));
+	}
+
+	/**
+	 * Checks whether an animation, which is played once, has finished.
+	 *
+	 * @param id
+	 *            id of the animation
+	 * @param phase
+	 *            phase offset of the entity
+	 * @return <code>true</code>, if the last frame has been shown long enough
+	 */
+	public boolean isAnimationFinished(int id, float phase) {
+		return animations.get(id).isAnimationFinished(getStateTime(id, phase));
+	}
+
+	private float getStateTime(int id, float phase) {
+		final float period = periods.get(id);
+		float time = times.get(id) + phase;
+		if (period > 0) {
+			time %= period;
+			if (time < 0) {
+				time += period;
+			}
+		}
+		return Math.max(0, time);
+	}
+}
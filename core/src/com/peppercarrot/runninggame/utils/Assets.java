@@ -2,13 +2,18 @@ package com.peppercarrot.runninggame.utils;
 
 import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.assets.AssetManager;
+import com.badlogic.gdx.assets.loaders.TextureLoader.TextureParameter;
+import com.badlogic.gdx.graphics.Texture;
 import com.badlogic.gdx.graphics.g2d.TextureAtlas;
 import com.badlogic.gdx.scenes.scene2d.ui.Skin;
 import com.badlogic.gdx.utils.Array;
 
 /**
- * Stores assets and skin.
+ * Stores assets and skin. The regions of the atlas are looked up by handle,
+ * see {@link RegionRegistry}.
+ * 
  * @author WinterLicht
+ * @author momsen
  *
  */
 public enum Assets {
@@ -17,6 +22,7 @@ public enum Assets {
 	public AssetManager manager;
 	public Skin skin;
 	public TextureAtlas atlas;
+	public RegionRegistry regions;
 	
 	Assets() {
 		setUp();
@@ -27,12 +33,38 @@ public enum Assets {
 		manager.load("skin.atlas", TextureAtlas.class);
 		manager.finishLoading();
 		atlas = manager.get("skin.atlas", TextureAtlas.class);
+		regions = new RegionRegistry(atlas);
 		skin = new Skin(Gdx.files.internal("skin.json"));
 	}
 
+	/**
+	 * Gets a mip mapped, repeating texture, which is loaded on first use and
+	 * kept for the following worlds.
+	 * 
+	 * @param fileName
+	 *            internal texture file
+	 * @return shared texture
+	 */
+	public Texture getRepeatingTexture(String fileName) {
+		if (!manager.isLoaded(fileName, Texture.class)) {
+			final TextureParameter parameter = new TextureParameter();
+			parameter.genMipMaps = true;
+			parameter.wrapU = Texture.TextureWrap.Repeat;
+			parameter.wrapV = Texture.TextureWrap.Repeat;
+			manager.load(fileName, Texture.class, parameter);
+			manager.finishLoadingAsset(fileName);
+		}
+		return manager.get(fileName, Texture.class);
+	}
+
+	/**
+	 * Copies the frames of a region, for animations which are created once.
+	 * 
+	 * @param name
+	 *            name of the region in the atlas
+	 * @return new array of copied frames
+	 */
 	public Array<TextureAtlas.AtlasRegion> getRegions(String name){
-		Array<TextureAtlas.AtlasRegion> regions;
-		regions = atlas.findRegions(name);
-		return regions;
+		return regions.copyFrames(regions.getHandle(name));
 	}
 }
@@ -0,0 +1,114 @@
+package com.peppercarrot.runninggame.utils;
+
+import com.badlogic.gdx.graphics.g2d.TextureAtlas;
+import com.badlogic.gdx.graphics.g2d.TextureAtlas.AtlasRegion;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.badlogic.gdx.utils.ObjectIntMap;
+
+/**
+ * Regions of a texture atlas, registered once after the atlas has been
+ * loaded. Each region name gets a stable handle, which indexes its frames.
+ * Entities resolve their handles once per type, so creating an entity neither
+ * scans the atlas like {@link TextureAtlas#findRegions(String)} nor allocates
+ * arrays of frames.
+ *
+ * @author momsen
+ *
+ */
+public class RegionRegistry {
+
+	private final ObjectIntMap<String> handles = new ObjectIntMap<String>();
+
+	/**
+	 * Frames of each handle, in the order of their index
+	 */
+	private final Array<Array<AtlasRegion>> frames = new Array<Array<AtlasRegion>>();
+
+	/**
+	 * Groups the regions of the atlas by name. The atlas keeps its regions
+	 * sorted by their index, so the frames are in animation order.
+	 *
+	 * @param atlas
+	 *            loaded atlas
+	 */
+	public RegionRegistry(TextureAtlas atlas) {
+		final Array<AtlasRegion> regions = atlas.getRegions();
+		for (int i = 0; i < regions.size; i++) {
+			final AtlasRegion region = regions.get(i);
+			int handle = handles.get(region.name, -1);
+			if (handle < 0) {
+				handle = frames.size;
+				frames.add(new Array<AtlasRegion>(1));
+				handles.put(region.name, handle);
+			}
+			frames.get(handle).add(region);
+		}
+	}
+
+	/**
+	 * Resolves a region name to its handle. Should be done once per entity
+	 * type, not per entity.
+	 *
+	 * @param name
+	 *            name of the region in the atlas
+	 * @return handle of the region and its frames
+	 */
+	public int getHandle(String name) {
+		final int handle = handles.get(name, -1);
+		if (handle < 0) {
+			throw new GdxRuntimeException("Unknown atlas region " + name);
+		}
+		return handle;
+	}
+
+	/**
+	 * Gets the first frame of a region, like
+	 * {@link TextureAtlas#findRegion(String)}.
+	 *
+	 * @param handle
+	 *            handle of the region, see {@link #getHandle(String)}
+	 * @return shared region, must not be modified
+	 */
+	public AtlasRegion getRegion(int handle) {
+		return frames.get(handle).first();
+	}
+
+	/**
+	 * Gets all frames of a region.
+	 *
+	 * @param handle
+	 *            handle of the region, see {@link #getHandle(String)}
+	 * @return shared frames, must not be modified
+	 */
+	public Array<AtlasRegion> getFrames(int handle) {
+		return frames.get(handle);
+	}
+
+	/**
+	 * Copies all frames of a region, like
+	 * {@link TextureAtlas#findRegions(String)}. For animations which modify
+	 * their frames, e.g. by flipping them.
+	 *
+	 * @param handle
+	 *            handle of the region, see {@link #getHandle(String)}
+	 * @return new array of copied frames
+	 */
+	public Array<AtlasRegion> copyFrames(int handle) {
+		final Array<AtlasRegion> source = frames.get(handle);
+		final Array<AtlasRegion> copy = new Array<AtlasRegion>(source.size);
+		for (int i = 0; i < source.size; i++) {
+			copy.add(new AtlasRegion(source.get(i)));
+		}
+		return copy;
+	}
+
+	/**
+	 * Number of distinct region names.
+	 *
+	 * @return handle count
+	 */
+	public int getCount() {
+		return frames.size;
+	}
+}
@@ -0,0 +1,80 @@
+package com.peppercarrot.runninggame.utils;
+
+import com.badlogic.gdx.graphics.g2d.Batch;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.scenes.scene2d.ui.Image;
+import com.badlogic.gdx.scenes.scene2d.utils.TextureRegionDrawable;
+
+/**
+ * Image showing an animation of the {@link AnimationRegistry}. The image only
+ * stores its phase offset, the frame is looked up when it is drawn. Acting
+ * the image does nothing for the animation.
+ *
+ * @author momsen
+ *
+ */
+public class SharedAnimationImage extends Image {
+
+	private final TextureRegionDrawable frame;
+
+	private int animation;
+
+	private float phase;
+
+	/**
+	 * Creates the image, sized to the first frame of the animation.
+	 *
+	 * @param animation
+	 *            id of the animation, see
+	 *            {@link AnimationRegistry#register(String, float, com.badlogic.gdx.graphics.g2d.Animation.PlayMode)}
+	 */
+	public SharedAnimationImage(int animation) {
+		this(animation, new TextureRegionDrawable(AnimationRegistry.I.getKeyFrame(animation, 0)));
+	}
+
+	/**
+	 * Creates an image without animation, e.g. for pools. It has to be given
+	 * an animation by {@link #setAnimation(int)} and sized before it is drawn.
+	 */
+	public SharedAnimationImage() {
+		this(-1, new TextureRegionDrawable());
+	}
+
+	private SharedAnimationImage(int animation, TextureRegionDrawable frame) {
+		super(frame);
+		this.frame = frame;
+		this.animation = animation;
+	}
+
+	/**
+	 * Switches to another animation, which starts with its first frame.
+	 *
+	 * @param animation
+	 *            id of the animation
+	 */
+	public void setAnimation(int animation) {
+		this.animation = animation;
+		restart();
+	}
+
+	/**
+	 * Starts the animation with its first frame.
+	 */
+	public void restart() {
+		phase = AnimationRegistry.I.getRestartPhase(animation);
+	}
+
+	public boolean isAnimationFinished() {
+		return AnimationRegistry.I.isAnimationFinished(animation, phase);
+	}
+
+	public TextureRegion getKeyFrame() {
+		return AnimationRegistry.I.getKeyFrame(animation, phase);
+	}
+
+	@Override
+	public void draw(Batch batch, float parentAlpha) {
+		frame.setRegion(getKeyFrame());
+		super.draw(batch, parentAlpha);
+	}
+}
@@ -0,0 +1,73 @@
+package com.peppercarrot.runninggame.utils;
+
+/**
+ * Fixed timestep clock. Converts the variable frame time into a number of
+ * simulation steps of constant length, so that the simulation behaves the
+ * same at any frame rate. The time which is left over is carried into the
+ * next frame and can be used to interpolate between the last two steps.
+ *
+ * @author momsen
+ *
+ */
+public class SimulationClock {
+
+	/**
+	 * Length of a simulation step in seconds. The runner physics are tuned
+	 * for 60 steps per second.
+	 */
+	public static final float STEP = 1 / 60f;
+
+	/**
+	 * Steps which are executed per frame at most. If a frame took longer, the
+	 * remaining time is dropped instead of trying to catch up.
+	 */
+	private final int maxStepsPerFrame;
+
+	private float accumulator;
+
+	private long stepCount;
+
+	public SimulationClock(int maxStepsPerFrame) {
+		this.maxStepsPerFrame = maxStepsPerFrame;
+	}
+
+	/**
+	 * Adds the time of a frame.
+	 *
+	 * @param delta
+	 *            time since last frame in seconds
+	 * @return number of steps to simulate in this frame
+	 */
+	public int advance(float delta) {
+		accumulator += delta;
+
+		int steps = (int) (accumulator / STEP);
+		if (steps > maxStepsPerFrame) {
+			steps = maxStepsPerFrame;
+			accumulator = 0;
+		} else {
+			accumulator -= steps * STEP;
+		}
+
+		stepCount += steps;
+		return steps;
+	}
+
+	/**
+	 * Interpolation factor between the last two steps for rendering.
+	 *
+	 * @return factor between 0 (previous step) and 1 (last step)
+	 */
+	public float getAlpha() {
+		return Math.min(1, accumulator / STEP);
+	}
+
+	/**
+	 * Number of steps simulated since the clock has been created.
+	 *
+	 * @return step count
+	 */
+	public long getStepCount() {
+		return stepCount;
+	}
+}
@@ -0,0 +1,237 @@
+package com.peppercarrot.runninggame.utils;
+
+/**
+ * Hierarchical timer wheel on the simulation clock. Time advances in ticks of
+ * {@link SimulationClock#STEP}. A timer is kept in a slot of the lowest level
+ * which covers its expiry: the first level has one slot per tick, each
+ * further level one slot per revolution of the level below. Whenever a level
+ * completes a revolution, the next slot of the level above is cascaded down.
+ * Scheduling and cancelling only link or unlink a timer, and a tick only
+ * visits the timers which expire or cascade, so idle timers are never
+ * polled.
+ *
+ * The timers are owned by their users and reused, so no garbage is created.
+ *
+ * @author momsen
+ *
+ */
+public enum TimerWheel {
+	I; // Singleton
+
+	/**
+	 * Timer invoking a callback when it expires, can be scheduled again
+	 * afterwards.
+	 */
+	public static class Timer {
+		private final Callback callback;
+
+		private Timer previous;
+
+		private Timer next;
+
+		private long expiry;
+
+		private int level = UNSCHEDULED;
+
+		private int slot;
+
+		public Timer(Callback callback) {
+			this.callback = callback;
+		}
+
+		public boolean isScheduled() {
+			return level != UNSCHEDULED;
+		}
+	}
+
+	private static final int SLOT_BITS = 6;
+
+	private static final int SLOTS = 1 << SLOT_BITS;
+
+	private static final int SLOT_MASK = SLOTS - 1;
+
+	private static final int LEVELS = 4;
+
+	private static final int UNSCHEDULED = -2;
+
+	/**
+	 * Level of the timers, which expire during the current tick
+	 */
+	private static final int EXPIRING = -1;
+
+	private final Timer[][] slots = new Timer[LEVELS][SLOTS];
+
+	private final int[] pendingCounts = new int[LEVELS];
+
+	/**
+	 * Timers of the current tick, whose callbacks are being invoked
+	 */
+	private Timer expiring;
+
+	private long tick;
+
+	/**
+	 * Schedules a timer, a scheduled timer is rescheduled.
+	 *
+	 * @param timer
+	 * @param delay
+	 *            delay in seconds, expires after at least one tick
+	 */
+	public void schedule(Timer timer, float delay) {
+		cancel(timer);
+		timer.expiry = tick + Math.max(1, Math.round(delay / SimulationClock.STEP));
+		insert(timer);
+	}
+
+	/**
+	 * Removes a timer without invoking its callback. Does nothing, if it is
+	 * not scheduled.
+	 *
+	 * @param timer
+	 */
+	public void cancel(Timer timer) {
+		if (!timer.isScheduled()) {
+			return;
+		}
+
+		if (timer.previous != null) {
+			timer.previous.next = timer.next;
+		} else if (timer.level == EXPIRING) {
+			expiring = timer.next;
+		} else {
+			slots[timer.level][timer.slot] = timer.next;
+		}
+		if (timer.next != null) {
+			timer.next.previous = timer.previous;
+		}
+		if (timer.level >= 0) {
+			pendingCounts[timer.level]--;
+		}
+		timer.previous = null;
+		timer.next = null;
+		timer.level = UNSCHEDULED;
+	}
+
+	/**
+	 * Gets the time until a timer expires.
+	 *
+	 * @param timer
+	 * @return remaining time in seconds, 0 if it is not scheduled
+	 */
+	public float getRemaining(Timer timer) {
+		return timer.isScheduled() ? (timer.expiry - tick) * SimulationClock.STEP : 0;
+	}
+
+	/**
+	 * Advances the wheel by one tick and invokes the callbacks of all timers,
+	 * which expire. Has to be called once per simulation step.
+	 */
+	public void advance() {
+		tick++;
+
+		// Cascade the levels above, whenever the level below has completed a
+		// revolution
+		for (int level = 1; level < LEVELS; level++) {
+			if ((tick & ((1L << (SLOT_BITS * level)) - 1)) != 0) {
+				break;
+			}
+			cascade(level, (int) (tick >> (SLOT_BITS * level)) & SLOT_MASK);
+		}
+
+		final int slot = (int) tick & SLOT_MASK;
+		expiring = slots[0][slot];
+		slots[0][slot] = null;
+		for (Timer timer = expiring; timer != null; timer = timer.next) {
+			timer.level = EXPIRING;
+			pendingCounts[0]--;
+		}
+
+		// Callbacks may schedule or cancel timers, including the expiring ones
+		while (expiring != null) {
+			final Timer timer = expiring;
+			cancel(timer);
+			timer.callback.invoke();
+		}
+	}
+
+	private void cascade(int level, int slot) {
+		Timer timer = slots[level][slot];
+		slots[level][slot] = null;
+		while (timer != null) {
+			final Timer next = timer.next;
+			pendingCounts[level]--;
+			timer.previous = null;
+			timer.next = null;
+			insert(timer);
+			timer = next;
+		}
+	}
+
+	private void insert(Timer timer) {
+		final long delta = timer.expiry - tick;
+		int level = 0;
+		while (level < LEVELS - 1 && delta >= 1L << (SLOT_BITS * (level + 1))) {
+			level++;
+		}
+
+		// Timers beyond the last level wait in its farthest slot and cascade
+		// until they fit
+		final long expiry = Math.min(timer.expiry, tick + (1L << (SLOT_BITS * LEVELS)) - 1);
+		final int slot = (int) (expiry >> (SLOT_BITS * level)) & SLOT_MASK;
+
+		timer.level = level;
+		timer.slot = slot;
+		timer.previous = null;
+		timer.next = slots[level][slot];
+		if (timer.next != null) {
+			timer.next.previous = timer;
+		}
+		slots[level][slot] = timer;
+		pendingCounts[level]++;
+	}
+
+	/**
+	 * Removes all timers without invoking their callbacks.
+	 */
+	public void clear() {
+		for (int level = 0; level < LEVELS; level++) {
+			for (int slot = 0; slot < SLOTS; slot++) {
+				while (slots[level][slot] != null) {
+					cancel(slots[level][slot]);
+				}
+			}
+		}
+		while (expiring != null) {
+			cancel(expiring);
+		}
+	}
+
+	/**
+	 * Number of scheduled timers.
+	 *
+	 * @return timer count
+	 */
+	public int getPendingCount() {
+		int count = 0;
+		for (int level = 0; level < LEVELS; level++) {
+			count += pendingCounts[level];
+		}
+		return count;
+	}
+
+	/**
+	 * Number of scheduled timers in a level of the wheel.
+	 *
+	 * @param level
+	 *            0 for the timers expiring during the next revolution of the
+	 *            first level
+	 * @return timer count
+	 */
+	public int getPendingCount(int level) {
+		return pendingCounts[level];
+	}
+
+	public int getLevelCount() {
+		return LEVELS;
+	}
+}
@@ -0,0 +1,308 @@
+package com.peppercarrot.runninggame.utils;
+
+import java.util.Arrays;
+
+import com.badlogic.gdx.math.Interpolation;
+import com.badlogic.gdx.scenes.scene2d.Actor;
+import com.badlogic.gdx.utils.Array;
+
+/**
+ * Tweens of actor properties for the effects of the abilities. All active
+ * tweens are stored in parallel arrays and updated in one loop per
+ * simulation step, see {@link #update(float)}, instead of a graph of scene2d
+ * actions per actor. Finished tweens invoke their {@link Callback} after all
+ * tweens have been updated. Callbacks are stored, not created, so neither
+ * starting nor finishing a tween allocates once the arrays are large enough.
+ *
+ * @author momsen
+ *
+ */
+public enum TweenEngine {
+	I; // Singleton
+
+	public static final int X = 1;
+
+	public static final int Y = 2;
+
+	public static final int ROTATION = 3;
+
+	/**
+	 * X and y at once, the y values are kept in the second lane
+	 */
+	public static final int POSITION = 4;
+
+	private int count;
+
+	private Actor[] targets = new Actor[16];
+
+	private int[] properties = new int[16];
+
+	private float[] from = new float[16];
+
+	private float[] to = new float[16];
+
+	/**
+	 * Second lane, only used by {@link #POSITION}
+	 */
+	private float[] fromY = new float[16];
+
+	private float[] toY = new float[16];
+
+	private float[] durations = new float[16];
+
+	private float[] times = new float[16];
+
+	private Interpolation[] easings = new Interpolation[16];
+
+	/**
+	 * Repeating tweens restart relative to the reached value and never finish
+	 */
+	private boolean[] repeating = new boolean[16];
+
+	private Callback[] callbacks = new Callback[16];
+
+	private final Array<Callback> finishedCallbacks = new Array<Callback>(false, 16);
+
+	/**
+	 * Tweens a property from its current value to the given value.
+	 *
+	 * @param target
+	 *            tweened actor
+	 * @param property
+	 *            {@link #X}, {@link #Y} or {@link #ROTATION}
+	 * @param value
+	 *            end value
+	 * @param duration
+	 *            duration in seconds
+	 * @param easing
+	 * @param callback
+	 *            invoked when the tween has finished, can be
+	 *            <code>null</code>
+	 */
+	public void to(Actor target, int property, float value, float duration, Interpolation easing,
+			Callback callback) {
+		add(target, property, get(target, property), value, duration, easing, false, callback);
+	}
+
+	/**
+	 * Moves an actor to the given position, see
+	 * {@link #to(Actor, int, float, float, Interpolation, Callback)}.
+	 *
+	 * @param target
+	 * @param x
+	 * @param y
+	 * @param duration
+	 * @param easing
+	 * @param callback
+	 *            invoked once, when the actor has arrived, can be
+	 *            <code>null</code>
+	 */
+	public void moveTo(Actor target, float x, float y, float duration, Interpolation easing, Callback callback) {
+		add(target, POSITION, target.getX(), x, duration, easing, false, callback);
+		fromY[count - 1] = target.getY();
+		toY[count - 1] = y;
+	}
+
+	/**
+	 * Changes a property by the given amount, over and over again until the
+	 * tween is cancelled.
+	 *
+	 * @param target
+	 *            tweened actor
+	 * @param property
+	 *            {@link #X}, {@link #Y} or {@link #ROTATION}
+	 * @param amount
+	 *            change per repetition
+	 * @param duration
+	 *            duration of one repetition in seconds
+	 */
+	public void repeatBy(Actor target, int property, float amount, float duration) {
+		final float value = get(target, property);
+		add(target, property, value, value + amount, duration, Interpolation.linear, true, null);
+	}
+
+	private void add(Actor target, int property, float start, float end, float duration, Interpolation easing,
+			boolean repeat, Callback callback) {
+		if (count == targets.length) {
+			final int capacity = count * 2;
+			targets = Arrays.copyOf(targets, capacity);
+			properties = Arrays.copyOf(properties, capacity);
+			from = Arrays.copyOf(from, capacity);
+			to = Arrays.copyOf(to, capacity);
+			fromY = Arrays.copyOf(fromY, capacity);
+			toY = Arrays.copyOf(toY, capacity);
+			durations = Arrays.copyOf(durations, capacity);
+			times = Arrays.copyOf(times, capacity);
+			easings = Arrays.copyOf(easings, capacity);
+			repeating = Arrays.copyOf(repeating, capacity);
+			callbacks = Arrays.copyOf(callbacks, capacity);
+		}
+
+		final int index = count++;
+		targets[index] = target;
+		properties[index] = property;
+		from[index] = start;
+		to[index] = end;
+		durations[index] = duration;
+		times[index] = 0;
+		easings[index] = easing;
+		repeating[index] = repeat;
+		callbacks[index] = callback;
+	}
+
+	/**
+	 * Changes the destination of all running movements of an actor, for
+	 * destinations which move while they are followed.
+	 *
+	 * @param target
+	 *            tweened actor
+	 * @param x
+	 * @param y
+	 */
+	public void retarget(Actor target, float x, float y) {
+		for (int i = 0; i < count; i++) {
+			if (targets[i] == target && properties[i] == POSITION) {
+				to[i] = x;
+				toY[i] = y;
+			}
+		}
+	}
+
+	/**
+	 * Removes all tweens of an actor without invoking their callbacks.
+	 *
+	 * @param target
+	 */
+	public void cancel(Actor target) {
+		int kept = 0;
+		for (int i = 0; i < count; i++) {
+			if (targets[i] != target) {
+				move(i, kept++);
+			}
+		}
+		clearSlots(kept);
+	}
+
+	/**
+	 * Removes all tweens without invoking their callbacks.
+	 */
+	public void clear() {
+		clearSlots(0);
+	}
+
+	/**
+	 * Advances all tweens and invokes the callbacks of the finished ones.
+	 *
+	 * @param delta
+	 *            time in seconds
+	 */
+	public void update(float delta) {
+		int kept = 0;
+		for (int i = 0; i < count; i++) {
+			final float duration = durations[i];
+			float time = times[i] + delta;
+			boolean finished = false;
+			if (time >= duration) {
+				if (repeating[i] && duration > 0) {
+					final float amount = to[i] - from[i];
+					while (time >= duration) {
+						time -= duration;
+						from[i] += amount;
+						to[i] += amount;
+					}
+				} else {
+					time = duration;
+					finished = true;
+				}
+			}
+			times[i] = time;
+
+			final float eased = easings[i].apply(duration > 0 ? time / duration : 1);
+			if (properties[i] == POSITION) {
+				targets[i].setPosition(from[i] + (to[i] - from[i]) * eased, fromY[i] + (toY[i] - fromY[i]) * eased);
+			} else {
+				set(targets[i], properties[i], from[i] + (to[i] - from[i]) * eased);
+			}
+
+			if (finished) {
+				if (callbacks[i] != null) {
+					finishedCallbacks.add(callbacks[i]);
+				}
+			} else {
+				move(i, kept++);
+			}
+		}
+		clearSlots(kept);
+
+		// Callbacks may start or cancel tweens, so they are invoked last
+		for (int i = 0; i < finishedCallbacks.size; i++) {
+			finishedCallbacks.get(i).invoke();
+		}
+		finishedCallbacks.clear();
+	}
+
+	private void move(int source, int destination) {
+		if (source == destination) {
+			return;
+		}
+		targets[destination] = targets[source];
+		properties[destination] = properties[source];
+		from[destination] = from[source];
+		to[destination] = to[source];
+		fromY[destination] = fromY[source];
+		toY[destination] = toY[source];
+		durations[destination] = durations[source];
+		times[destination] = times[source];
+		easings[destination] = easings[source];
+		repeating[destination] = repeating[source];
+		callbacks[destination] = callbacks[source];
+	}
+
+	/**
+	 * Drops all tweens from the given index on, releasing their references.
+	 */
+	private void clearSlots(int newCount) {
+		Arrays.fill(targets, newCount, count, null);
+		Arrays.fill(easings, newCount, count, null);
+		Arrays.fill(callbacks, newCount, count, null);
+		count = newCount;
+	}
+
+	private static float get(Actor target, int property) {
+		switch (property) {
+		case X:
+			return target.getX();
+		case Y:
+			return target.getY();
+		case ROTATION:
+			return target.getRotation();
+		default:
+			return 0;
+		}
+	}
+
+	private static void set(Actor target, int property, float value) {
+		switch (property) {
+		case X:
+			target.setX(value);
+			break;
+		case Y:
+			target.setY(value);
+			break;
+		case ROTATION:
+			target.setRotation(value);
+			break;
+		default:
+			break;
+		}
+	}
+
+	/**
+	 * Number of running tweens.
+	 *
+	 * @return tween count
+	 */
+	public int getCount() {
+		return count;
+	}
+}
@@ -1,9 +1,9 @@
 package com.peppercarrot.runninggame.world;
 
-import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.graphics.Texture;
 import com.badlogic.gdx.graphics.g2d.Batch;
 import com.badlogic.gdx.scenes.scene2d.Actor;
+import com.peppercarrot.runninggame.utils.Assets;
 
 /**
  * An infinitely scrolling and repeating background. The viewport has to be set
@@ -33,8 +33,7 @@ public class Background extends Actor {
 	private float viewportY;
 
 	public Background(String backgroundPicture, int virtualWidth, int virtualHeight) {
-		texture = new Texture(Gdx.files.internal(backgroundPicture), true);
-		texture.setWrap(Texture.TextureWrap.Repeat, Texture.TextureWrap.Repeat);
+		texture = Assets.I.getRepeatingTexture(backgroundPicture);
 		textureWidth = texture.getWidth();
 		textureHeight = texture.getHeight();
 
@@ -0,0 +1,215 @@
+package com.peppercarrot.runninggame.world;
+
+import java.util.Arrays;
+
+import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.utils.Bits;
+
+/**
+ * Enemies or potions of a level segment as struct of arrays. The store is the
+ * source of truth for the bounds and states of the entities, collisions and
+ * queries only read the primitive arrays. The scene2d actors are views, which
+ * draw an entry and write their state changes into the store.
+ *
+ * Active entities are additionally marked in a bitset. Collision passes only
+ * visit the set bits, so killed enemies and collected potions cost nothing
+ * there.
+ *
+ * All bounds are relative to the segment, the origin of the segment is
+ * updated while scrolling. The arrays are reused when the segment is
+ * recycled.
+ *
+ * @author momsen
+ *
+ */
+public class EntityStore {
+
+	/**
+	 * Idle enemy or collectable potion
+	 */
+	public static final byte ACTIVE = 0;
+
+	/**
+	 * Killed enemy, which still plays its death animation
+	 */
+	public static final byte DYING = 1;
+
+	/**
+	 * Collected potion or enemy whose death animation has finished
+	 */
+	public static final byte RETIRED = 2;
+
+	private int count;
+
+	private float[] x = new float[0];
+
+	private float[] y = new float[0];
+
+	private float[] width = new float[0];
+
+	private float[] height = new float[0];
+
+	private byte[] states = new byte[0];
+
+	private int[] types = new int[0];
+
+	/**
+	 * Bit set for each entity in state {@link #ACTIVE}
+	 */
+	private final Bits active = new Bits();
+
+	private float originX;
+
+	private float originY;
+
+	/**
+	 * Adds an active entity.
+	 *
+	 * @param x
+	 *            left border relative to the segment
+	 * @param y
+	 *            bottom border relative to the segment
+	 * @param width
+	 * @param height
+	 * @param type
+	 *            type id, see {@link LevelSegmentPools}
+	 * @return index of the entity
+	 */
+	public int add(float x, float y, float width, float height, int type) {
+		if (count == states.length) {
+			final int capacity = Math.max(8, count * 2);
+			this.x = Arrays.copyOf(this.x, capacity);
+			this.y = Arrays.copyOf(this.y, capacity);
+			this.width = Arrays.copyOf(this.width, capacity);
+			this.height = Arrays.copyOf(this.height, capacity);
+			states = Arrays.copyOf(states, capacity);
+			types = Arrays.copyOf(types, capacity);
+		}
+
+		final int index = count++;
+		this.x[index] = x;
+		this.y[index] = y;
+		this.width[index] = width;
+		this.height[index] = height;
+		states[index] = ACTIVE;
+		types[index] = type;
+		active.set(index);
+		return index;
+	}
+
+	/**
+	 * Removes all entities, the arrays are kept.
+	 */
+	public void clear() {
+		count = 0;
+		active.clear();
+		originX = 0;
+		originY = 0;
+	}
+
+	/**
+	 * Sets the position of the segment in world coordinates.
+	 *
+	 * @param x
+	 * @param y
+	 */
+	public void setOrigin(float x, float y) {
+		originX = x;
+		originY = y;
+	}
+
+	public int getCount() {
+		return count;
+	}
+
+	/**
+	 * Left border relative to the segment.
+	 *
+	 * @param index
+	 * @return x position
+	 */
+	public float getX(int index) {
+		return x[index];
+	}
+
+	/**
+	 * Bottom border relative to the segment.
+	 *
+	 * @param index
+	 * @return y position
+	 */
+	public float getY(int index) {
+		return y[index];
+	}
+
+	public float getWidth(int index) {
+		return width[index];
+	}
+
+	public float getHeight(int index) {
+		return height[index];
+	}
+
+	public byte getState(int index) {
+		return states[index];
+	}
+
+	public void setState(int index, byte state) {
+		states[index] = state;
+		if (state == ACTIVE) {
+			active.set(index);
+		} else {
+			active.clear(index);
+		}
+	}
+
+	public boolean isActive(int index) {
+		return states[index] == ACTIVE;
+	}
+
+	/**
+	 * Finds the next active entity, usage:
+	 * <code>for (int i = store.nextActive(0); i >= 0; i = store.nextActive(i + 1))</code>
+	 *
+	 * @param from
+	 *            first index to check
+	 * @return index of the next active entity or -1
+	 */
+	public int nextActive(int from) {
+		return active.nextSetBit(from);
+	}
+
+	public int getType(int index) {
+		return types[index];
+	}
+
+	/**
+	 * Gets the bounds of an entity in world coordinates.
+	 *
+	 * @param index
+	 * @param rectangle
+	 *            result rectangle
+	 */
+	public void retrieveBounds(int index, Rectangle rectangle) {
+		rectangle.x = originX + x[index];
+		rectangle.y = originY + y[index];
+		rectangle.width = width[index];
+		rectangle.height = height[index];
+	}
+
+	/**
+	 * Checks whether an entity overlaps the given rectangle, same as
+	 * {@link Rectangle#overlaps(Rectangle)}.
+	 *
+	 * @param index
+	 * @param rectangle
+	 *            rectangle in world coordinates
+	 * @return <code>true</code>, if they overlap
+	 */
+	public boolean overlaps(int index, Rectangle rectangle) {
+		final float left = originX + x[index];
+		final float bottom = originY + y[index];
+		return left < rectangle.x + rectangle.width && left + width[index] > rectangle.x
+				&& bottom < rectangle.y + rectangle.height && bottom + height[index] > rectangle.y;
+	}
+}
@@ -1,198 +1,555 @@
 package com.peppercarrot.runninggame.world;
 
 import java.util.ArrayList;
-import java.util.Collection;
-import java.util.Collections;
-import java.util.Comparator;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
-
-import com.badlogic.gdx.graphics.OrthographicCamera;
-import com.badlogic.gdx.maps.MapLayer;
-import com.badlogic.gdx.maps.MapProperties;
-import com.badlogic.gdx.maps.tiled.TiledMap;
-import com.badlogic.gdx.maps.tiled.TiledMapTileLayer;
-import com.badlogic.gdx.maps.tiled.TiledMapTileLayer.Cell;
-import com.badlogic.gdx.maps.tiled.renderers.BatchTiledMapRenderer;
+
+import com.badlogic.gdx.math.Circle;
+import com.badlogic.gdx.math.Rectangle;
 import com.badlogic.gdx.scenes.scene2d.Actor;
 import com.badlogic.gdx.scenes.scene2d.Group;
 import com.badlogic.gdx.utils.Align;
+import com.badlogic.gdx.utils.IntArray;
+import com.badlogic.gdx.utils.ObjectIntMap;
+import com.badlogic.gdx.utils.SnapshotArray;
+import com.badlogic.gdx.utils.Pool.Poolable;
 import com.peppercarrot.runninggame.entities.Enemy;
 import com.peppercarrot.runninggame.entities.Potion;
-import com.peppercarrot.runninggame.utils.ActorXPositionComparator;
 import com.peppercarrot.runninggame.utils.Constants;
 
 /**
- * A single level segment loaded from a tile map
+ * A single level segment instance created from a {@link LevelSegmentTemplate}.
+ * The instance has its own offset and its own enemies and potions. Instances
+ * and their elements are recycled by {@link LevelSegmentPools}.
+ * 
+ * All actors keep their segment local coordinates. They are added in z order
+ * to three groups, one for each segment related {@link WorldLayers layer},
+ * and only these groups are moved while scrolling.
+ * 
+ * The bounds and states of the enemies and potions are kept in an
+ * {@link EntityStore} each, the enemy and potion actors only draw them. These
+ * actors are obtained from the pools only when an entity enters the spawn
+ * horizon in front of the viewport and are freed again as soon as it has
+ * left the viewport, see {@link #updateEntityActors(float, float)}. The
+ * number of entity actors depends on the screen width, not on the length of
+ * the segment.
+ * 
+ * Only the children of the three groups are culled against the viewport, so
+ * the groups contain no further groups. Entities are inserted in front of an
+ * empty anchor actor at their place between the tiles, ordered by their index
+ * in the draw order of the template, so the draw order is the one of the TMX
+ * regardless of the order in which the entities spawn. Tiles below the runner
+ * are only added to the background group up to the first entity below the
+ * runner, all following tiles are added to the group of these entities.
+ * 
+ * Enemies, potions and platforms are indexed by a {@link SegmentGrid} each,
+ * which is rebuilt when the segment is initialized. Platform surfaces are
+ * looked up in the {@link SegmentSkyline} of the template.
  * 
  * @author momsen
  *
  */
-public class LevelSegment {
+public class LevelSegment implements Poolable {
+
+	/**
+	 * Edge length of a grid cell in tiles
+	 */
+	private static final int GRID_CELL_SIZE_IN_TILES = 2;
 
-	private final int segmentWidth;
+	private int segmentWidth;
 
+	/**
+	 * Potion actors, <code>null</code> while a potion has no actor
+	 */
 	private final List<Potion> potions = new ArrayList<Potion>();
 
+	/**
+	 * Enemy actors, <code>null</code> while an enemy has no actor
+	 */
 	private final List<Enemy> enemies = new ArrayList<Enemy>();
 
+	/**
+	 * Anchor in front of which the actor of each enemy is inserted
+	 */
+	private final List<Actor> enemyAnchors = new ArrayList<Actor>();
+
+	/**
+	 * Anchor in front of which the actor of each potion is inserted
+	 */
+	private final List<Actor> potionAnchors = new ArrayList<Actor>();
+
+	/**
+	 * Index of each enemy in the draw order of the template
+	 */
+	private final IntArray enemyDrawIndices = new IntArray();
+
+	/**
+	 * Index of each potion in the draw order of the template
+	 */
+	private final IntArray potionDrawIndices = new IntArray();
+
+	/**
+	 * Index in the draw order of each entity actor in the groups
+	 */
+	private final ObjectIntMap<Actor> actorDrawIndices = new ObjectIntMap<Actor>();
+
+	/**
+	 * Empty actors keeping the z order of entities between tiles, reused
+	 */
+	private final List<Actor> entityAnchors = new ArrayList<Actor>();
+
+	private int usedEntityAnchors;
+
+	/**
+	 * Enemies and potions before these indices have already entered the spawn
+	 * horizon
+	 */
+	private int nextEnemyToSpawn;
+
+	private int nextPotionToSpawn;
+
+	/**
+	 * Enemies and potions before these indices have already been released
+	 */
+	private int firstLiveEnemy;
+
+	private int firstLivePotion;
+
+	private int entityActorCount;
+
+	/**
+	 * Bounds and states of the enemies, same order as {@link #enemies}
+	 */
+	private final EntityStore enemyStore = new EntityStore();
+
+	/**
+	 * Bounds and states of the potions, same order as {@link #potions}
+	 */
+	private final EntityStore potionStore = new EntityStore();
+
 	private final List<Platform> platforms = new ArrayList<Platform>();
 
-	private final String assetName;
+	/**
+	 * Platforms of previous uses of this instance, which are reused
+	 */
+	private final List<Platform> freePlatforms = new ArrayList<Platform>();
+
+	private final LevelSegmentPools pools;
+
+	private int index;
+
+	private LevelSegmentTemplate template;
+
+	private final List<TmxLayerActor> layerActors = new ArrayList<TmxLayerActor>();
+
+	/**
+	 * Contains the tiles with a z index lower than the runners, which are
+	 * drawn before all entities.
+	 */
+	private final Group backgroundGroup = new Group();
+
+	/**
+	 * Contains all enemies and potions with a z index lower than the runners
+	 * and the tiles drawn between or after them.
+	 */
+	private final Group belowRunnerGroup = new Group();
+
+	/**
+	 * Contains all actors with a z index greater or equal to the runners.
+	 */
+	private final Group aboveRunnerGroup = new Group();
+
+	private final Rectangle backgroundCullingArea = new Rectangle();
+
+	private final Rectangle belowRunnerCullingArea = new Rectangle();
+
+	private final Rectangle aboveRunnerCullingArea = new Rectangle();
+
+	private final SegmentGrid enemyGrid = new SegmentGrid();
 
-	private final List<Actor> actors = new ArrayList<Actor>();
+	private final SegmentGrid potionGrid = new SegmentGrid();
+
+	private final SegmentGrid platformGrid = new SegmentGrid();
+
+	/**
+	 * Reference points used while building the grids
+	 */
+	private float[] tempPositions = new float[0];
+
+	/**
+	 * Candidates of the current query
+	 */
+	private final IntArray tempCandidates = new IntArray();
 
 	private float x;
 
 	private float y;
 
-	private final Map<Actor, Integer> zIndexMap = new HashMap<Actor, Integer>();
+	/**
+	 * Creates an empty segment, see {@link LevelSegmentPools#obtainSegment()}.
+	 * 
+	 * @param pools
+	 *            pools of the segment elements
+	 */
+	LevelSegment(LevelSegmentPools pools) {
+		this.pools = pools;
 
-	public LevelSegment(OrthographicCamera camera, String assetName, TiledMap map, BatchTiledMapRenderer renderer) {
-		this.assetName = assetName;
+		// Children are drawn with the group offset, no batch flush needed
+		backgroundGroup.setTransform(false);
+		belowRunnerGroup.setTransform(false);
+		aboveRunnerGroup.setTransform(false);
+	}
+
+	/**
+	 * Creates the tile layer actors of a segment using the pooled instances
+	 * and places the enemies and potions. Has to be called on the GL thread,
+	 * all decoding has already been done by the loader of the template.
+	 * 
+	 * @param index
+	 *            running number of this instance
+	 * @param template
+	 *            template containing the decoded segment
+	 */
+	void init(int index, LevelSegmentTemplate template) {
+		this.index = index;
+		this.template = template;
 
-		final Integer tilewidth = map.getProperties().get("tilewidth", Integer.class);
-		final Integer tileheight = map.getProperties().get("tileheight", Integer.class);
-		segmentWidth = map.getProperties().get("width", Integer.class) * tilewidth;
+		final LevelSegmentData data = template.getData();
+		final TileLayerCache tileLayerCache = template.getTileLayerCache();
 
-		for (final MapLayer layer : map.getLayers()) {
-			if (layer instanceof TiledMapTileLayer) {
-				final TiledMapTileLayer tiledLayer = (TiledMapTileLayer) layer;
-				final MapProperties properties = layer.getProperties();
+		segmentWidth = data.width * data.tileWidth;
 
-				final int zIndex = getIntProperty(properties, "z-index", 0);
-				if (layer.isVisible()) {
-					final TmxLayerActor actor = new TmxLayerActor(tiledLayer, renderer, camera);
-					zIndexMap.put(actor, zIndex);
-					actors.add(actor);
-				}
+		for (int i = 0; i < tileLayerCache.getGroupCount(); i++) {
+			layerActors.add(pools.obtainLayerActor(tileLayerCache, i));
+		}
+
+		// Entities and platforms are already ordered by x position
+		for (int i = 0; i < data.getEnemyCount(); i++) {
+			final int type = pools.getEnemyTypeId(data.enemyNames[i]);
+			addEntity(enemyStore, data.enemyPositions, i, pools.getEnemyWidth(type), pools.getEnemyHeight(type),
+					type);
+			enemies.add(null);
+		}
+
+		for (int i = 0; i < data.getPotionCount(); i++) {
+			final int type = pools.getPotionTypeId(data.potionColors[i]);
+			addEntity(potionStore, data.potionPositions, i, pools.getPotionWidth(type),
+					pools.getPotionHeight(type), type);
+			potions.add(null);
+		}
+
+		final float[] rects = data.platforms;
+		for (int i = 0; i < rects.length; i += 4) {
+			platforms.add(createPlatform(rects[i], rects[i + 1], rects[i + 2], rects[i + 3]));
+		}
 
-				final boolean eventLayer = getBooleanProperty(properties, "events", false);
-				if (eventLayer) {
-					extractEntities(tiledLayer, tilewidth, tileheight, zIndex);
+		buildGrids(data);
+
+		// Appending in draw order keeps the z order inside each group. Entity
+		// actors are added later, so they get an anchor at their place in the
+		// draw order. Entities between the same tiles share an anchor.
+		final int[] drawOrder = template.getDrawOrder();
+		final int groupCount = tileLayerCache.getGroupCount();
+		final int enemyCount = data.getEnemyCount();
+		for (int i = 0; i < enemyCount; i++) {
+			enemyDrawIndices.add(0);
+		}
+		for (int i = 0; i < data.getPotionCount(); i++) {
+			potionDrawIndices.add(0);
+		}
+		boolean entityBelowRunner = false;
+		Actor belowRunnerAnchor = null;
+		Actor aboveRunnerAnchor = null;
+		for (int i = 0; i < drawOrder.length; i++) {
+			final int element = drawOrder[i];
+			if (element < groupCount) {
+				if (tileLayerCache.getZIndex(element) >= Constants.RUNNER_ZINDEX) {
+					aboveRunnerGroup.addActor(layerActors.get(element));
+					aboveRunnerAnchor = null;
+				} else if (entityBelowRunner) {
+					belowRunnerGroup.addActor(layerActors.get(element));
+					belowRunnerAnchor = null;
+				} else {
+					backgroundGroup.addActor(layerActors.get(element));
+				}
+			} else {
+				final boolean isEnemy = element < groupCount + enemyCount;
+				final int zIndex = isEnemy ? data.enemyZIndices[element - groupCount]
+						: data.potionZIndices[element - groupCount - enemyCount];
+				final Actor anchor;
+				if (zIndex >= Constants.RUNNER_ZINDEX) {
+					if (aboveRunnerAnchor == null) {
+						aboveRunnerAnchor = obtainEntityAnchor();
+						aboveRunnerGroup.addActor(aboveRunnerAnchor);
+					}
+					anchor = aboveRunnerAnchor;
+				} else {
+					entityBelowRunner = true;
+					if (belowRunnerAnchor == null) {
+						belowRunnerAnchor = obtainEntityAnchor();
+						belowRunnerGroup.addActor(belowRunnerAnchor);
+					}
+					anchor = belowRunnerAnchor;
 				}
 
-				final boolean collisionLayer = getBooleanProperty(properties, "platforms", false);
-				if (collisionLayer) {
-					platforms.addAll(extractPlatforms(tiledLayer, tilewidth, tileheight));
+				if (isEnemy) {
+					setAnchor(enemyAnchors, element - groupCount, anchor);
+					enemyDrawIndices.set(element - groupCount, i);
+				} else {
+					setAnchor(potionAnchors, element - groupCount - enemyCount, anchor);
+					potionDrawIndices.set(element - groupCount - enemyCount, i);
 				}
 			}
 		}
-
-		Collections.sort(platforms, new Platform.XPositionComparator());
-		Collections.sort(enemies, new ActorXPositionComparator());
-		Collections.sort(potions, new ActorXPositionComparator());
 	}
 
 	/**
-	 * Gets the base asset name of which this segment is loaded
-	 * 
-	 * @return asset name
+	 * Adds an entity to a store, centered on its position in the segment.
 	 */
-	public String getAssetName() {
-		return assetName;
+	private static void addEntity(EntityStore store, float[] positions, int index, float width, float height,
+			int type) {
+		store.add(positions[index * 2] - width / 2, positions[index * 2 + 1] - height / 2, width, height, type);
 	}
 
-	private static boolean getBooleanProperty(MapProperties properties, String name, boolean defaultValue) {
-		final String value = properties.get(name, String.class);
-		if (value == null) {
-			return defaultValue;
+	private static void setAnchor(List<Actor> anchors, int index, Actor anchor) {
+		while (anchors.size() <= index) {
+			anchors.add(null);
 		}
-
-		return Boolean.valueOf(value);
+		anchors.set(index, anchor);
 	}
 
-	private static int getIntProperty(MapProperties properties, String name, int defaultValue) {
-		final String value = properties.get(name, String.class);
-		if (value == null) {
-			return defaultValue;
+	private Actor obtainEntityAnchor() {
+		if (usedEntityAnchors == entityAnchors.size()) {
+			pools.countAllocation();
+			final Actor anchor = new Actor();
+			// Draws nothing, so it is neither drawn nor counted as culled
+			anchor.setVisible(false);
+			entityAnchors.add(anchor);
 		}
+		return entityAnchors.get(usedEntityAnchors++);
+	}
 
-		return Integer.parseInt(value);
+	/**
+	 * Inserts an entity actor in front of its anchor, behind all spawned
+	 * entities of the same anchor which come later in the draw order.
+	 */
+	private void addEntityActor(Actor actor, Actor anchor, int drawIndex) {
+		final Group group = anchor.getParent();
+		final SnapshotArray<Actor> children = group.getChildren();
+		int index = children.indexOf(anchor, true);
+		// The entities of an anchor are directly in front of it, sorted
+		while (index > 0 && actorDrawIndices.get(children.get(index - 1), -1) > drawIndex) {
+			index--;
+		}
+		group.addActorAt(index, actor);
+		actorDrawIndices.put(actor, drawIndex);
 	}
 
-	private void extractEntities(TiledMapTileLayer layer, int tilewidth, int tileheight, int layerZIndex) {
-		final float centerOffsetX = tilewidth / 2.0f;
-		final float centerOffsetY = tileheight / 2.0f;
+	private void removeEntityActor(Actor actor) {
+		actor.remove();
+		actorDrawIndices.remove(actor, -1);
+	}
 
-		for (int column = 0; column < layer.getWidth(); column++) {
-			for (int row = 0; row < layer.getHeight(); row++) {
+	/**
+	 * Obtains the actors of all entities which entered the spawn horizon and
+	 * frees the actors of all entities which have left the viewport. Entities
+	 * which have left the viewport are retired, they cannot be hit anymore.
+	 * 
+	 * @param spawnX
+	 *            entities whose left border is left of this x position in
+	 *            world coordinates need an actor
+	 * @param releaseX
+	 *            entities whose right border is left of this x position in
+	 *            world coordinates are released
+	 */
+	public void updateEntityActors(float spawnX, float releaseX) {
+		// Entities are ordered by their center, so an entity may be spawned a
+		// few pixels late, the horizon covers that
+		while (nextEnemyToSpawn < enemies.size() && x + enemyStore.getX(nextEnemyToSpawn) <= spawnX) {
+			final int i = nextEnemyToSpawn++;
+			if (enemyStore.getState(i) != EntityStore.RETIRED) {
+				final Enemy enemy = pools.obtainEnemy(pools.getEnemyType(enemyStore.getType(i)));
+				enemy.setOrigin(Align.center);
+				enemy.bind(enemyStore, i);
+				addEntityActor(enemy, enemyAnchors.get(i), enemyDrawIndices.get(i));
+				enemies.set(i, enemy);
+				entityActorCount++;
+			}
+		}
 
-				final Cell cell = layer.getCell(column, row);
-				if (cell != null) {
-					final String type = cell.getTile().getProperties().get("type", String.class);
-					final int zIndex = getIntProperty(cell.getTile().getProperties(), "z-index", layerZIndex);
+		while (nextPotionToSpawn < potions.size() && x + potionStore.getX(nextPotionToSpawn) <= spawnX) {
+			final int i = nextPotionToSpawn++;
+			if (potionStore.getState(i) != EntityStore.RETIRED) {
+				final Potion potion = pools.obtainPotion(pools.getPotionType(potionStore.getType(i)));
+				potion.setOrigin(Align.center);
+				potion.bind(potionStore, i);
+				addEntityActor(potion, potionAnchors.get(i), potionDrawIndices.get(i));
+				potions.set(i, potion);
+				entityActorCount++;
+			}
+		}
 
-					if ("enemy".equals(type)) {
-						enemies.add(
-								createEnemy(column, row, tilewidth, tileheight, centerOffsetX, centerOffsetY, zIndex));
-					}
+		for (int i = firstLiveEnemy; i < nextEnemyToSpawn; i++) {
+			final Enemy enemy = enemies.get(i);
+			if (enemy != null && x + enemyStore.getX(i) + enemyStore.getWidth(i) < releaseX) {
+				enemyStore.setState(i, EntityStore.RETIRED);
+				removeEntityActor(enemy);
+				pools.free(enemy);
+				enemies.set(i, null);
+				entityActorCount--;
+			}
+			if (i == firstLiveEnemy && enemies.get(i) == null) {
+				firstLiveEnemy++;
+			}
+		}
 
-					if ("potion".equals(type)) {
-						final String potionColor = cell.getTile().getProperties().get("color", String.class);
-						potions.add(createPotion(potionColor, column, row, tilewidth, tileheight, centerOffsetX,
-								centerOffsetY, zIndex));
-					}
-				}
+		for (int i = firstLivePotion; i < nextPotionToSpawn; i++) {
+			final Potion potion = potions.get(i);
+			if (potion != null && x + potionStore.getX(i) + potionStore.getWidth(i) < releaseX) {
+				potionStore.setState(i, EntityStore.RETIRED);
+				removeEntityActor(potion);
+				pools.free(potion);
+				potions.set(i, null);
+				entityActorCount--;
+			}
+			if (i == firstLivePotion && potions.get(i) == null) {
+				firstLivePotion++;
 			}
 		}
 	}
 
-	private Collection<Platform> extractPlatforms(TiledMapTileLayer tiledLayer, float tileWidth, float tileHeight) {
-		final List<Platform> platformsInLayer = new ArrayList<>();
-		for (int column = 0; column <= tiledLayer.getWidth(); column++) {
-			for (int row = 0; row < tiledLayer.getHeight(); row++) {
-				final Cell cell = tiledLayer.getCell(column, row);
-				if (cell != null) {
-					platformsInLayer
-							.add(new Platform(this, column * tileWidth, row * tileHeight, tileWidth, tileHeight));
-				}
+	/**
+	 * Number of enemy and potion actors currently obtained by this segment.
+	 * 
+	 * @return actor count
+	 */
+	public int getEntityActorCount() {
+		return entityActorCount;
+	}
+
+	/**
+	 * Indexes all elements by the bottom left corner of their bounds, which is
+	 * the point tested by the queries.
+	 */
+	private void buildGrids(LevelSegmentData data) {
+		final float segmentHeight = data.height * data.tileHeight;
+		final float cellSize = GRID_CELL_SIZE_IN_TILES * data.tileWidth;
+		final int maxCount = Math.max(data.getPlatformCount(), Math.max(enemies.size(), potions.size()));
+		if (tempPositions.length < maxCount * 2) {
+			tempPositions = new float[maxCount * 2];
+		}
+
+		buildGrid(enemyGrid, enemyStore, segmentHeight, cellSize);
+		buildGrid(potionGrid, potionStore, segmentHeight, cellSize);
+
+		final float[] rects = data.platforms;
+		for (int i = 0; i < data.getPlatformCount(); i++) {
+			tempPositions[i * 2] = rects[i * 4];
+			tempPositions[i * 2 + 1] = rects[i * 4 + 1];
+		}
+		platformGrid.build(tempPositions, data.getPlatformCount(), segmentWidth, segmentHeight, cellSize);
+	}
+
+	private void buildGrid(SegmentGrid grid, EntityStore store, float segmentHeight, float cellSize) {
+		for (int i = 0; i < store.getCount(); i++) {
+			tempPositions[i * 2] = store.getX(i);
+			tempPositions[i * 2 + 1] = store.getY(i);
+		}
+		grid.build(tempPositions, store.getCount(), segmentWidth, segmentHeight, cellSize);
+	}
+
+	/**
+	 * Returns all elements to their pools. Called when this segment is freed.
+	 */
+	@Override
+	public void reset() {
+		backgroundGroup.clearChildren();
+		belowRunnerGroup.clearChildren();
+		aboveRunnerGroup.clearChildren();
+		backgroundGroup.setPosition(0, 0);
+		belowRunnerGroup.setPosition(0, 0);
+		aboveRunnerGroup.setPosition(0, 0);
+
+		for (int i = 0; i < enemies.size(); i++) {
+			if (enemies.get(i) != null) {
+				pools.free(enemies.get(i));
+			}
+		}
+		for (int i = 0; i < potions.size(); i++) {
+			if (potions.get(i) != null) {
+				pools.free(potions.get(i));
 			}
 		}
+		for (int i = 0; i < layerActors.size(); i++) {
+			pools.free(layerActors.get(i));
+		}
 
-		return platformsInLayer;
+		for (int i = 0; i < platforms.size(); i++) {
+			freePlatforms.add(platforms.get(i));
+		}
+		platforms.clear();
+		enemies.clear();
+		potions.clear();
+		enemyStore.clear();
+		potionStore.clear();
+		enemyAnchors.clear();
+		potionAnchors.clear();
+		enemyDrawIndices.clear();
+		potionDrawIndices.clear();
+		actorDrawIndices.clear();
+		usedEntityAnchors = 0;
+		nextEnemyToSpawn = 0;
+		nextPotionToSpawn = 0;
+		firstLiveEnemy = 0;
+		firstLivePotion = 0;
+		entityActorCount = 0;
+		layerActors.clear();
+		template = null;
+		x = 0;
+		y = 0;
 	}
 
-	private Enemy createEnemy(int column, int row, int tilewidth, int tileheight, float centerOffsetX,
-			float centerOffsetY, int zIndex) {
-		final float posX = (column + 0.5f) * tilewidth;
-		final float posY = (row + 0.5f) * tileheight;
-		// TODO: various types
-		final Enemy enemy = new Enemy("fly");
-		enemy.setOrigin(Align.center);
-		enemy.setX(posX - enemy.getWidth() / 2);
-		enemy.setY(posY - enemy.getHeight() / 2);
-		zIndexMap.put(enemy, zIndex);
-		actors.add(enemy);
+	/**
+	 * Gets the running number of this segment instance
+	 * 
+	 * @return index
+	 */
+	public int getIndex() {
+		return index;
+	}
 
-		return enemy;
+	/**
+	 * Gets the template this segment has been created from
+	 * 
+	 * @return template
+	 */
+	public LevelSegmentTemplate getTemplate() {
+		return template;
 	}
 
-	private Potion createPotion(String color, int column, int row, int tilewidth, int tileheight, float centerOffsetX,
-			float centerOffsetY, int zIndex) {
-		final float posX = (column + 0.5f) * tilewidth;
-		final float posY = (row + 0.5f) * tileheight;
-		final Potion potion = new Potion(color);
-		potion.setOrigin(Align.center);
-		potion.setX(posX - potion.getWidth() / 2);
-		potion.setY(posY - potion.getHeight() / 2);
-		zIndexMap.put(potion, zIndex);
-		actors.add(potion);
+	private Platform createPlatform(float x, float y, float w, float h) {
+		if (freePlatforms.isEmpty()) {
+			pools.countAllocation();
+			return new Platform(this, x, y, w, h);
+		}
 
-		return potion;
+		final Platform platform = freePlatforms.remove(freePlatforms.size() - 1);
+		platform.set(x, y, w, h);
+		return platform;
 	}
 
 	/**
-	 * Moves this segment to the left by a specific offset
+	 * Moves this segment to the left by a specific offset. Only the three
+	 * segment groups are moved, independent of the number of actors.
 	 * 
 	 * @param offset
 	 */
 	public void moveLeft(float offset) {
 		x = x - offset;
-		for (final Actor actor : actors) {
-			actor.setX(actor.getX() - offset);
-		}
+		backgroundGroup.setX(x);
+		belowRunnerGroup.setX(x);
+		aboveRunnerGroup.setX(x);
+		enemyStore.setOrigin(x, y);
+		potionStore.setOrigin(x, y);
 	}
 
 	/**
@@ -204,6 +561,149 @@ public class LevelSegment {
 		return x + segmentWidth;
 	}
 
+	/**
+	 * Adds all platforms whose position lies inside the given circle.
+	 * 
+	 * @param circle
+	 *            query circle in world coordinates
+	 * @param nearPlatforms
+	 *            result, the platforms are appended
+	 */
+	public void getPlatformsNear(Circle circle, List<Platform> nearPlatforms) {
+		final float[] rects = template.getData().platforms;
+		queryGrid(platformGrid, circle);
+		for (int i = 0; i < tempCandidates.size; i++) {
+			final int platformIndex = tempCandidates.get(i);
+			if (circle.contains(x + rects[platformIndex * 4], y + rects[platformIndex * 4 + 1])) {
+				nearPlatforms.add(platforms.get(platformIndex));
+			}
+		}
+	}
+
+	/**
+	 * Adds all living enemies with an actor whose hitbox position lies inside
+	 * the given circle.
+	 * 
+	 * @param circle
+	 *            query circle in world coordinates
+	 * @param nearEnemies
+	 *            result, the enemies are appended
+	 */
+	public void getEnemiesNear(Circle circle, List<Enemy> nearEnemies) {
+		queryGrid(enemyGrid, circle);
+		for (int i = 0; i < tempCandidates.size; i++) {
+			final int enemy = tempCandidates.get(i);
+			if (enemyStore.isActive(enemy) && enemies.get(enemy) != null
+					&& circle.contains(x + enemyStore.getX(enemy), y + enemyStore.getY(enemy))) {
+				nearEnemies.add(enemies.get(enemy));
+			}
+		}
+	}
+
+	/**
+	 * Adds all collectable potions with an actor whose hitbox position lies
+	 * inside the given circle.
+	 * 
+	 * @param circle
+	 *            query circle in world coordinates
+	 * @param nearPotions
+	 *            result, the potions are appended
+	 */
+	public void getPotionsNear(Circle circle, List<Potion> nearPotions) {
+		queryGrid(potionGrid, circle);
+		for (int i = 0; i < tempCandidates.size; i++) {
+			final int potion = tempCandidates.get(i);
+			if (potionStore.isActive(potion) && potions.get(potion) != null
+					&& circle.contains(x + potionStore.getX(potion), y + potionStore.getY(potion))) {
+				nearPotions.add(potions.get(potion));
+			}
+		}
+	}
+
+	/**
+	 * Sweeps the bottom edge of a box during the last simulation step against
+	 * the platform tops and finds the first platform it lands on. The segment
+	 * scrolled to the left during the step, so each platform is checked at
+	 * its position at the time of impact. Nothing can be skipped, regardless
+	 * of the falling speed or the length of the step.
+	 * 
+	 * @param fromX
+	 *            left border in world coordinates
+	 * @param toX
+	 *            right border in world coordinates
+	 * @param startY
+	 *            bottom at the beginning of the step in world coordinates
+	 * @param endY
+	 *            bottom at the end of the step in world coordinates
+	 * @param scroll
+	 *            distance the segment moved to the left during the step
+	 * @return platform or <code>null</code>, if the box does not land or is
+	 *         moving upwards
+	 */
+	public Platform findLanding(float fromX, float toX, float startY, float endY, float scroll) {
+		// Relative to the segment, the box moved to the right during the step
+		final float sweptFromX = fromX - scroll;
+		if (endY > startY || toX < x || sweptFromX >= getRightX()) {
+			return null;
+		}
+
+		final SegmentSkyline skyline = template.getSkyline();
+		final float[] rects = template.getData().platforms;
+		final float localStartY = startY - y;
+		final float localEndY = endY - y;
+		final float distance = localStartY - localEndY;
+		final int fromColumn = skyline.getColumn(sweptFromX - x);
+		final int toColumn = skyline.getColumn(toX - x);
+		int best = -1;
+		for (int column = fromColumn; column <= toColumn; column++) {
+			// Surfaces crossed during the step, from top to bottom
+			final int first = skyline.getFirstSurface(column);
+			for (int surface = skyline.findSurfaceBelow(column, localStartY); surface >= first; surface--) {
+				final float top = skyline.getSurface(surface);
+				if (top < localEndY || best >= 0 && top <= skyline.getSurface(best)) {
+					break;
+				}
+
+				// Time of impact as fraction of the step, the platform was
+				// further to the right before
+				final float time = distance > 0 ? (localStartY - top) / distance : 1;
+				final int platform = skyline.getPlatformIndex(surface);
+				final float left = x + rects[platform * 4] + scroll * (1 - time);
+				final float right = left + rects[platform * 4 + 2];
+				if (fromX < right && toX > left) {
+					best = surface;
+					break;
+				}
+			}
+		}
+
+		return best < 0 ? null : platforms.get(skyline.getPlatformIndex(best));
+	}
+
+	/**
+	 * Gets the height of the highest platform top at or below a given height.
+	 * 
+	 * @param posX
+	 *            x position in world coordinates inside this segment
+	 * @param posY
+	 *            height in world coordinates
+	 * @return platform top in world coordinates or
+	 *         {@link Float#NEGATIVE_INFINITY}, if there is no platform below
+	 */
+	public float getSurfaceBelow(float posX, float posY) {
+		final SegmentSkyline skyline = template.getSkyline();
+		final int surface = skyline.findSurfaceBelow(skyline.getColumn(posX - x), posY - y);
+		return surface < 0 ? Float.NEGATIVE_INFINITY : y + skyline.getSurface(surface);
+	}
+
+	private void queryGrid(SegmentGrid grid, Circle circle) {
+		tempCandidates.clear();
+		final float localX = circle.x - x;
+		final float localY = circle.y - y;
+		grid.query(localX - circle.radius, localY - circle.radius, localX + circle.radius, localY + circle.radius,
+				tempCandidates);
+	}
+
 	/**
 	 * Returns the list of all platforms ordered by x position.
 	 * 
@@ -214,7 +714,9 @@ public class LevelSegment {
 	}
 
 	/**
-	 * Returns the list of all enemies ordered by x position.
+	 * Returns the list of all enemy actors ordered by x position. Enemies
+	 * outside of the spawn horizon have no actor, their entry is
+	 * <code>null</code>.
 	 * 
 	 * @return list of all enemies
 	 */
@@ -223,7 +725,9 @@ public class LevelSegment {
 	}
 
 	/**
-	 * Returns the list of all potions ordered by x position.
+	 * Returns the list of all potion actors ordered by x position. Potions
+	 * outside of the spawn horizon have no actor, their entry is
+	 * <code>null</code>.
 	 * 
 	 * @return list of all potions
 	 */
@@ -232,60 +736,63 @@ public class LevelSegment {
 	}
 
 	/**
-	 * Adds all segment actors to the world group based on the z index of the
-	 * given runner.
+	 * Returns the bounds and states of all enemies, in the same order as
+	 * {@link #getEnemies()}.
+	 * 
+	 * @return enemy store
+	 */
+	public EntityStore getEnemyStore() {
+		return enemyStore;
+	}
+
+	/**
+	 * Returns the bounds and states of all potions, in the same order as
+	 * {@link #getPotions()}.
+	 * 
+	 * @return potion store
+	 */
+	public EntityStore getPotionStore() {
+		return potionStore;
+	}
+
+	/**
+	 * Appends the segment groups to the world layers.
 	 * 
-	 * @param worldGroup
-	 * @param runner
+	 * @param layers
 	 * @param segmentOffsetX
 	 * @param segmentOffsetY
 	 */
-	public void addToWorld(Group worldGroup, Actor runner, float segmentOffsetX, float segmentOffsetY) {
+	public void addToWorld(WorldLayers layers, float segmentOffsetX, float segmentOffsetY) {
 		x = segmentOffsetX;
 		y = segmentOffsetY;
 
-		Collections.sort(actors, new Comparator<Actor>() {
-			final Integer integerZero = Integer.valueOf(0);
+		backgroundGroup.setPosition(x, y);
+		belowRunnerGroup.setPosition(x, y);
+		aboveRunnerGroup.setPosition(x, y);
+		enemyStore.setOrigin(x, y);
+		potionStore.setOrigin(x, y);
 
-			@Override
-			public int compare(Actor l, Actor r) {
-				if (zIndexMap.containsKey(l)) {
-					final Integer zIndexL = zIndexMap.get(l);
-					if (zIndexMap.containsKey(r)) {
-						final Integer zIndexR = zIndexMap.get(r);
-						return zIndexL.compareTo(zIndexR);
-					}
-
-					return zIndexL.compareTo(0);
-				}
-
-				if (zIndexMap.containsKey(r)) {
-					final Integer zIndexR = zIndexMap.get(r);
-					return integerZero.compareTo(zIndexR);
-				}
-
-				return 0;
-			}
-		});
-
-		for (final Actor actor : actors) {
-			actor.setX(actor.getX() + segmentOffsetX);
-			actor.setY(actor.getY() + segmentOffsetY);
-			worldGroup.addActor(actor);
+		layers.getBackgroundTiles().addActor(backgroundGroup);
+		layers.getBelowRunner().addActor(belowRunnerGroup);
+		layers.getAboveRunner().addActor(aboveRunnerGroup);
+	}
 
-			final int index = zIndexMap.containsKey(actor) ? zIndexMap.get(actor) : 0;
-			if (index < Constants.RUNNER_ZINDEX) {
-				actor.setZIndex(runner.getZIndex() - 1);
-			} else {
-				actor.setZIndex(runner.getZIndex() + 1);
-			}
-		}
+	/**
+	 * Culls the children of the segment groups for the next draw. Has to be
+	 * called after the world layers have been offset for the frame.
+	 * 
+	 * @param culling
+	 */
+	public void cull(ViewportCulling culling) {
+		culling.cull(backgroundGroup, backgroundCullingArea);
+		culling.cull(belowRunnerGroup, belowRunnerCullingArea);
+		culling.cull(aboveRunnerGroup, aboveRunnerCullingArea);
 	}
 
-	public void removeFromWorld(Group worldGroup) {
-		for (final Actor actor : actors) {
-			worldGroup.removeActor(actor);
-		}
+	public void removeFromWorld() {
+		backgroundGroup.remove();
+		belowRunnerGroup.remove();
+		aboveRunnerGroup.remove();
 	}
 
 	public float getX() {
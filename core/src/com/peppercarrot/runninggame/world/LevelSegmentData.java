@@ -0,0 +1,194 @@
+package com.peppercarrot.runninggame.world;
+
+import java.nio.ByteBuffer;
+
+import com.badlogic.gdx.utils.GdxRuntimeException;
+
+/**
+ * Precompiled content of a level segment. Contains the tile grids of all
+ * visible layers, the already extracted enemies and potions and the platform
+ * rectangles. This class does not reference any GL resources, so it can be
+ * decoded on any thread.
+ *
+ * The binary layout is written by the desktop <code>LevelSegmentCompiler</code>
+ * and read by {@link #read(ByteBuffer)}. All values are big endian, all
+ * positions are relative to the bottom left corner of the segment.
+ *
+ * @author momsen
+ *
+ */
+public class LevelSegmentData {
+
+	/**
+	 * File extension of compiled segments
+	 */
+	public static final String FILE_EXTENSION = "seg";
+
+	/**
+	 * "PCSG"
+	 */
+	public static final int MAGIC = 0x50435347;
+
+	public static final int VERSION = 1;
+
+	public static class Tileset {
+		public String imagePath;
+		public int firstGid;
+		public int tileWidth;
+		public int tileHeight;
+		public int spacing;
+		public int margin;
+		public int imageWidth;
+		public int imageHeight;
+	}
+
+	public static class Layer {
+		public int zIndex;
+
+		/**
+		 * Raw tiled gids including the flip flags, row major, row 0 at the
+		 * bottom. 0 marks an empty cell.
+		 */
+		public int[] gids;
+	}
+
+	public int tileWidth;
+
+	public int tileHeight;
+
+	/**
+	 * Width in tiles
+	 */
+	public int width;
+
+	/**
+	 * Height in tiles
+	 */
+	public int height;
+
+	public Tileset[] tilesets;
+
+	public Layer[] layers;
+
+	public String[] enemyNames;
+
+	/**
+	 * Center positions of all enemies, x and y interleaved.
+	 */
+	public float[] enemyPositions;
+
+	public int[] enemyZIndices;
+
+	public String[] potionColors;
+
+	/**
+	 * Center positions of all potions, x and y interleaved.
+	 */
+	public float[] potionPositions;
+
+	public int[] potionZIndices;
+
+	/**
+	 * Platform rectangles, x, y, width and height interleaved.
+	 */
+	public float[] platforms;
+
+	public int getEnemyCount() {
+		return enemyNames.length;
+	}
+
+	public int getPotionCount() {
+		return potionColors.length;
+	}
+
+	public int getPlatformCount() {
+		return platforms.length / 4;
+	}
+
+	/**
+	 * Reads a compiled segment. The position of the buffer will be moved to the
+	 * end of the segment.
+	 *
+	 * @param buffer
+	 *            buffer containing the segment
+	 * @return decoded segment
+	 */
+	public static LevelSegmentData read(ByteBuffer buffer) {
+		if (buffer.getInt() != MAGIC) {
+			throw new GdxRuntimeException("Not a compiled level segment");
+		}
+
+		final int version = buffer.getShort();
+		if (version != VERSION) {
+			throw new GdxRuntimeException("Unsupported level segment version " + version);
+		}
+
+		final LevelSegmentData data = new LevelSegmentData();
+		data.tileWidth = buffer.getInt();
+		data.tileHeight = buffer.getInt();
+		data.width = buffer.getInt();
+		data.height = buffer.getInt();
+
+		data.tilesets = new Tileset[buffer.getInt()];
+		for (int i = 0; i < data.tilesets.length; i++) {
+			final Tileset tileset = new Tileset();
+			tileset.imagePath = readString(buffer);
+			tileset.firstGid = buffer.getInt();
+			tileset.tileWidth = buffer.getInt();
+			tileset.tileHeight = buffer.getInt();
+			tileset.spacing = buffer.getInt();
+			tileset.margin = buffer.getInt();
+			tileset.imageWidth = buffer.getInt();
+			tileset.imageHeight = buffer.getInt();
+			data.tilesets[i] = tileset;
+		}
+
+		final int cellCount = data.width * data.height;
+		data.layers = new Layer[buffer.getInt()];
+		for (int i = 0; i < data.layers.length; i++) {
+			final Layer layer = new Layer();
+			layer.zIndex = buffer.getInt();
+			layer.gids = new int[cellCount];
+			buffer.asIntBuffer().get(layer.gids);
+			buffer.position(buffer.position() + cellCount * 4);
+			data.layers[i] = layer;
+		}
+
+		final int enemyCount = buffer.getInt();
+		data.enemyNames = new String[enemyCount];
+		data.enemyPositions = new float[enemyCount * 2];
+		data.enemyZIndices = new int[enemyCount];
+		for (int i = 0; i < enemyCount; i++) {
+			data.enemyNames[i] = readString(buffer);
+			data.enemyPositions[i * 2] = buffer.getFloat();
+			data.enemyPositions[i * 2 + 1] = buffer.getFloat();
+			data.enemyZIndices[i] = buffer.getInt();
+		}
+
+		final int potionCount = buffer.getInt();
+		data.potionColors = new String[potionCount];
+		data.potionPositions = new float[potionCount * 2];
+		data.potionZIndices = new int[potionCount];
+		for (int i = 0; i < potionCount; i++) {
+			data.potionColors[i] = readString(buffer);
+			data.potionPositions[i * 2] = buffer.getFloat();
+			data.potionPositions[i * 2 + 1] = buffer.getFloat();
+			data.potionZIndices[i] = buffer.getInt();
+		}
+
+		data.platforms = new float[buffer.getInt() * 4];
+		buffer.asFloatBuffer().get(data.platforms);
+		buffer.position(buffer.position() + data.platforms.length * 4);
+
+		return data;
+	}
+
+	private static String readString(ByteBuffer buffer) {
+		final int length = buffer.getShort();
+		final char[] chars = new char[length];
+		for (int i = 0; i < length; i++) {
+			chars[i] = buffer.getChar();
+		}
+		return new String(chars);
+	}
+}
@@ -0,0 +1,230 @@
+package com.peppercarrot.runninggame.world;
+
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.FloatArray;
+import com.badlogic.gdx.utils.ObjectIntMap;
+import com.badlogic.gdx.utils.ObjectMap;
+import com.badlogic.gdx.utils.Pool;
+import com.peppercarrot.runninggame.entities.Enemy;
+import com.peppercarrot.runninggame.entities.Potion;
+
+/**
+ * Pools of all level content: segments, tile layer actors, enemies and
+ * potions. Every object created by these pools (and every platform created by
+ * a segment) is counted, so after warm up the allocation count must stay
+ * constant no matter how long the run is.
+ *
+ * The pools also number the enemy types and potion colors, these numbers are
+ * the type ids of the {@link EntityStore}. The size of each type is taken
+ * from its first instance, so entities can be placed before their actors
+ * exist.
+ *
+ * @author momsen
+ *
+ */
+public class LevelSegmentPools {
+
+	private final ObjectMap<String, Pool<Enemy>> enemyPools = new ObjectMap<String, Pool<Enemy>>();
+
+	private final ObjectMap<String, Pool<Potion>> potionPools = new ObjectMap<String, Pool<Potion>>();
+
+	private final Pool<TmxLayerActor> layerActorPool = new Pool<TmxLayerActor>() {
+		@Override
+		protected TmxLayerActor newObject() {
+			allocations++;
+			return new TmxLayerActor();
+		}
+	};
+
+	private final Pool<LevelSegment> segmentPool = new Pool<LevelSegment>() {
+		@Override
+		protected LevelSegment newObject() {
+			allocations++;
+			return new LevelSegment(LevelSegmentPools.this);
+		}
+	};
+
+	private final ObjectIntMap<String> enemyTypeIds = new ObjectIntMap<String>();
+
+	private final Array<String> enemyTypes = new Array<String>();
+
+	/**
+	 * Width and height of each enemy type
+	 */
+	private final FloatArray enemySizes = new FloatArray();
+
+	private final ObjectIntMap<String> potionTypeIds = new ObjectIntMap<String>();
+
+	private final Array<String> potionTypes = new Array<String>();
+
+	/**
+	 * Width and height of each potion color
+	 */
+	private final FloatArray potionSizes = new FloatArray();
+
+	private int allocations;
+
+	/**
+	 * Obtains a segment and fills it with the content of the template.
+	 *
+	 * @param index
+	 *            running number of the instance
+	 * @param template
+	 *            decoded segment
+	 * @return segment instance
+	 */
+	public LevelSegment obtainSegment(int index, LevelSegmentTemplate template) {
+		final LevelSegment segment = segmentPool.obtain();
+		segment.init(index, template);
+		return segment;
+	}
+
+	/**
+	 * Frees a segment and all of its elements. The segment has to be removed
+	 * from the world before.
+	 *
+	 * @param segment
+	 *            segment to free
+	 */
+	public void free(LevelSegment segment) {
+		segmentPool.free(segment);
+	}
+
+	TmxLayerActor obtainLayerActor(TileLayerCache cache, int group) {
+		final TmxLayerActor actor = layerActorPool.obtain();
+		actor.setLayer(cache, group);
+		return actor;
+	}
+
+	void free(TmxLayerActor actor) {
+		layerActorPool.free(actor);
+	}
+
+	Enemy obtainEnemy(final String type) {
+		Pool<Enemy> pool = enemyPools.get(type);
+		if (pool == null) {
+			final Enemy.Graphics graphics = new Enemy.Graphics(type);
+			pool = new Pool<Enemy>() {
+				@Override
+				protected Enemy newObject() {
+					allocations++;
+					return new Enemy(graphics);
+				}
+			};
+			enemyPools.put(type, pool);
+		}
+		return pool.obtain();
+	}
+
+	void free(Enemy enemy) {
+		enemyPools.get(enemy.getType()).free(enemy);
+	}
+
+	Potion obtainPotion(final String color) {
+		Pool<Potion> pool = potionPools.get(color);
+		if (pool == null) {
+			final Potion.Graphics graphics = new Potion.Graphics(color);
+			pool = new Pool<Potion>() {
+				@Override
+				protected Potion newObject() {
+					allocations++;
+					return new Potion(graphics);
+				}
+			};
+			potionPools.put(color, pool);
+		}
+		return pool.obtain();
+	}
+
+	void free(Potion potion) {
+		potionPools.get(potion.getColorName()).free(potion);
+	}
+
+	/**
+	 * Gets the type id of an enemy type, new types are numbered on first use.
+	 *
+	 * @param type
+	 *            enemy type name
+	 * @return type id
+	 */
+	int getEnemyTypeId(String type) {
+		int id = enemyTypeIds.get(type, -1);
+		if (id < 0) {
+			id = addType(enemyTypeIds, enemyTypes, type);
+			final Enemy enemy = obtainEnemy(type);
+			enemySizes.add(enemy.getWidth());
+			enemySizes.add(enemy.getHeight());
+			free(enemy);
+		}
+		return id;
+	}
+
+	String getEnemyType(int typeId) {
+		return enemyTypes.get(typeId);
+	}
+
+	float getEnemyWidth(int typeId) {
+		return enemySizes.get(typeId * 2);
+	}
+
+	float getEnemyHeight(int typeId) {
+		return enemySizes.get(typeId * 2 + 1);
+	}
+
+	/**
+	 * Gets the type id of a potion color, new colors are numbered on first
+	 * use.
+	 *
+	 * @param color
+	 *            potion color name
+	 * @return type id
+	 */
+	int getPotionTypeId(String color) {
+		int id = potionTypeIds.get(color, -1);
+		if (id < 0) {
+			id = addType(potionTypeIds, potionTypes, color);
+			final Potion potion = obtainPotion(color);
+			potionSizes.add(potion.getWidth());
+			potionSizes.add(potion.getHeight());
+			free(potion);
+		}
+		return id;
+	}
+
+	String getPotionType(int typeId) {
+		return potionTypes.get(typeId);
+	}
+
+	float getPotionWidth(int typeId) {
+		return potionSizes.get(typeId * 2);
+	}
+
+	float getPotionHeight(int typeId) {
+		return potionSizes.get(typeId * 2 + 1);
+	}
+
+	private static int addType(ObjectIntMap<String> ids, Array<String> names, String name) {
+		final int id = names.size;
+		names.add(name);
+		ids.put(name, id);
+		return id;
+	}
+
+	/**
+	 * Counts an allocation of level content which is recycled outside of the
+	 * pools.
+	 */
+	void countAllocation() {
+		allocations++;
+	}
+
+	/**
+	 * Number of level content objects created so far. Stays constant once all
+	 * pools are warmed up.
+	 *
+	 * @return allocation count
+	 */
+	public int getAllocationCount() {
+		return allocations;
+	}
+}
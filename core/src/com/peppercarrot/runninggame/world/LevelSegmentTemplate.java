@@ -0,0 +1,122 @@
+package com.peppercarrot.runninggame.world;
+
+import java.util.Arrays;
+
+import com.badlogic.gdx.utils.Disposable;
+
+/**
+ * Decoded level segment which is shared by all segment instances of the same
+ * file. The tile layers are never modified after loading, so they are baked
+ * into a {@link TileLayerCache} and every instance draws the same geometry at
+ * its own offset. Instances are created by
+ * {@link LevelSegmentPools#obtainSegment(int, LevelSegmentTemplate)}.
+ * 
+ * @author momsen
+ *
+ */
+public class LevelSegmentTemplate implements Disposable {
+
+	private final String fileName;
+
+	private final LevelSegmentData data;
+
+	private final TileLayerCache tileLayerCache;
+
+	private final SegmentSkyline skyline;
+
+	/**
+	 * Elements of an instance in draw order, see {@link #getDrawOrder()}
+	 */
+	private final int[] drawOrder;
+
+	private final int estimatedSize;
+
+	public LevelSegmentTemplate(String fileName, LevelSegmentData data, TileLayerCache tileLayerCache,
+			SegmentSkyline skyline) {
+		this.fileName = fileName;
+		this.data = data;
+		this.tileLayerCache = tileLayerCache;
+		this.skyline = skyline;
+		this.drawOrder = computeDrawOrder(data, tileLayerCache);
+		this.estimatedSize = estimateSize(data) + tileLayerCache.getVertexBytes() + skyline.getEstimatedSize();
+	}
+
+	/**
+	 * Sorts all elements by z index. Elements with the same z index keep
+	 * their order, so tiles are drawn before enemies and enemies before
+	 * potions.
+	 */
+	private static int[] computeDrawOrder(LevelSegmentData data, TileLayerCache tileLayerCache) {
+		final int groupCount = tileLayerCache.getGroupCount();
+		final int enemyCount = data.getEnemyCount();
+		final long[] keys = new long[groupCount + enemyCount + data.getPotionCount()];
+		for (int i = 0; i < keys.length; i++) {
+			final int zIndex;
+			if (i < groupCount) {
+				zIndex = tileLayerCache.getZIndex(i);
+			} else if (i < groupCount + enemyCount) {
+				zIndex = data.enemyZIndices[i - groupCount];
+			} else {
+				zIndex = data.potionZIndices[i - groupCount - enemyCount];
+			}
+			// z index in the upper half, element as tie breaker in the lower
+			keys[i] = ((long) zIndex << 32) | i;
+		}
+		Arrays.sort(keys);
+
+		final int[] order = new int[keys.length];
+		for (int i = 0; i < keys.length; i++) {
+			order[i] = (int) keys[i];
+		}
+		return order;
+	}
+
+	private static int estimateSize(LevelSegmentData data) {
+		final int cellCount = data.width * data.height;
+		int size = data.layers.length * cellCount * 4;
+		size += (data.enemyPositions.length + data.potionPositions.length + data.platforms.length) * 4;
+		size += (data.getEnemyCount() + data.getPotionCount()) * 8;
+		return size;
+	}
+
+	public String getFileName() {
+		return fileName;
+	}
+
+	public LevelSegmentData getData() {
+		return data;
+	}
+
+	public TileLayerCache getTileLayerCache() {
+		return tileLayerCache;
+	}
+
+	/**
+	 * Elements of an instance ordered by z index. Elements are numbered
+	 * starting with the tile layer groups, followed by the enemies and the
+	 * potions, each in the order of {@link LevelSegmentData}.
+	 * 
+	 * @return element numbers in draw order
+	 */
+	public int[] getDrawOrder() {
+		return drawOrder;
+	}
+
+	public SegmentSkyline getSkyline() {
+		return skyline;
+	}
+
+	/**
+	 * Estimated size in bytes, including the tile vertices.
+	 * 
+	 * @return size in bytes
+	 */
+	public int getEstimatedSize() {
+		return estimatedSize;
+	}
+
+	@Override
+	public void dispose() {
+		tileLayerCache.dispose();
+	}
+}
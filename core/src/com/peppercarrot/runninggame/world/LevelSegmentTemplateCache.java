@@ -0,0 +1,210 @@
+package com.peppercarrot.runninggame.world;
+
+import com.badlogic.gdx.Application;
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.assets.AssetLoaderParameters.LoadedCallback;
+import com.badlogic.gdx.assets.AssetManager;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.ObjectMap;
+
+/**
+ * Caches segment templates by file name, so that a file is decoded only once
+ * no matter how often the stream repeats it. Templates are reference counted by
+ * their requests and evicted in least recently used order as soon as they are
+ * unused and the cache exceeds its memory budget.
+ *
+ * @author momsen
+ *
+ */
+public class LevelSegmentTemplateCache {
+	private static final String LOG_TAG = LevelSegmentTemplateCache.class.getSimpleName();
+
+	private static class Entry {
+		/**
+		 * Number of requested instances which are not yet released
+		 */
+		int references;
+
+		/**
+		 * Estimated heap size of the template, 0 while it is loading
+		 */
+		int size;
+	}
+
+	private final AssetManager assetManager;
+
+	private final int memoryBudget;
+
+	/**
+	 * All cached and loading templates
+	 */
+	private final ObjectMap<String, Entry> entries = new ObjectMap<String, Entry>();
+
+	/**
+	 * File names of the entries, least recently used first. Walked by index,
+	 * so evicting does not allocate an iterator.
+	 */
+	private final Array<String> accessOrder = new Array<String>();
+
+	/**
+	 * Estimated heap size of all loaded templates, counted when a template
+	 * finishes loading and when it is evicted
+	 */
+	private int memoryUsage;
+
+	private final LevelSegmentTemplateLoader.Parameter loadParameter = new LevelSegmentTemplateLoader.Parameter();
+
+	private int hits;
+
+	private int misses;
+
+	private int evictions;
+
+	/**
+	 * @param assetManager
+	 *            asset manager with a registered
+	 *            {@link LevelSegmentTemplateLoader}
+	 * @param memoryBudget
+	 *            estimated heap size in bytes up to which unused templates are
+	 *            kept
+	 */
+	public LevelSegmentTemplateCache(AssetManager assetManager, int memoryBudget) {
+		this.assetManager = assetManager;
+		this.memoryBudget = memoryBudget;
+		loadParameter.loadedCallback = new LoadedCallback() {
+			@Override
+			@SuppressWarnings("rawtypes")
+			public void finishedLoading(AssetManager assetManager, String fileName, Class type) {
+				final Entry entry = entries.get(fileName);
+				if (entry != null) {
+					entry.size = get(fileName).getEstimatedSize();
+					memoryUsage += entry.size;
+				}
+			}
+		};
+	}
+
+	/**
+	 * Requests an instance of a template. Starts loading the template, if it
+	 * is not cached. Every request has to be followed by exactly one
+	 * {@link #release(LevelSegmentTemplate)}.
+	 *
+	 * @param fileName
+	 *            compiled segment file
+	 */
+	public void request(String fileName) {
+		Entry entry = entries.get(fileName);
+		if (entry == null) {
+			misses++;
+			entry = new Entry();
+			entries.put(fileName, entry);
+			accessOrder.add(fileName);
+			assetManager.load(fileName, LevelSegmentTemplate.class, loadParameter);
+			if (Gdx.app.getLogLevel() >= Application.LOG_DEBUG) {
+				Gdx.app.debug(LOG_TAG, "Miss, loading " + fileName);
+			}
+		} else {
+			hits++;
+			touch(fileName);
+		}
+		entry.references++;
+	}
+
+	/**
+	 * @param fileName
+	 *            compiled segment file
+	 * @return <code>true</code>, if the template is loaded
+	 */
+	public boolean isLoaded(String fileName) {
+		return assetManager.isLoaded(fileName, LevelSegmentTemplate.class);
+	}
+
+	/**
+	 * Gets a loaded template.
+	 *
+	 * @param fileName
+	 *            compiled segment file
+	 * @return template
+	 */
+	public LevelSegmentTemplate get(String fileName) {
+		return assetManager.get(fileName, LevelSegmentTemplate.class);
+	}
+
+	/**
+	 * Releases a requested instance. Evicts unused templates, if the cache
+	 * exceeds its budget.
+	 *
+	 * @param template
+	 *            template of the released instance
+	 */
+	public void release(LevelSegmentTemplate template) {
+		final Entry entry = entries.get(template.getFileName());
+		if (entry != null && entry.references > 0) {
+			entry.references--;
+			touch(template.getFileName());
+		}
+		evict();
+	}
+
+	/**
+	 * Marks an entry as most recently used.
+	 */
+	private void touch(String fileName) {
+		accessOrder.removeValue(fileName, false);
+		accessOrder.add(fileName);
+	}
+
+	private void evict() {
+		if (memoryUsage <= memoryBudget) {
+			return;
+		}
+		int i = 0;
+		while (i < accessOrder.size && memoryUsage > memoryBudget) {
+			final String fileName = accessOrder.get(i);
+			final Entry entry = entries.get(fileName);
+			if (entry.references == 0 && isLoaded(fileName)) {
+				memoryUsage -= entry.size;
+				entries.remove(fileName);
+				accessOrder.removeIndex(i);
+				assetManager.unload(fileName);
+				evictions++;
+				if (Gdx.app.getLogLevel() >= Application.LOG_DEBUG) {
+					Gdx.app.debug(LOG_TAG, "Evicted " + fileName);
+				}
+			} else {
+				i++;
+			}
+		}
+	}
+
+	/**
+	 * Estimated heap size of all loaded templates.
+	 *
+	 * @return size in bytes
+	 */
+	public int getMemoryUsage() {
+		return memoryUsage;
+	}
+
+	/**
+	 * Number of requests served by an already cached or loading template.
+	 *
+	 * @return hit count
+	 */
+	public int getHits() {
+		return hits;
+	}
+
+	/**
+	 * Number of requests which had to load and decode a template.
+	 *
+	 * @return miss count
+	 */
+	public int getMisses() {
+		return misses;
+	}
+
+	public int getEvictions() {
+		return evictions;
+	}
+}
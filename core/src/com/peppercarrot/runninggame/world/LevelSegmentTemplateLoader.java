@@ -0,0 +1,116 @@
+package com.peppercarrot.runninggame.world;
+
+import java.nio.ByteBuffer;
+
+import com.badlogic.gdx.assets.AssetDescriptor;
+import com.badlogic.gdx.assets.AssetLoaderParameters;
+import com.badlogic.gdx.assets.AssetManager;
+import com.badlogic.gdx.assets.loaders.AsynchronousAssetLoader;
+import com.badlogic.gdx.assets.loaders.resolvers.InternalFileHandleResolver;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.utils.Array;
+
+/**
+ * Loads a compiled level segment (see {@link LevelSegmentData}) as a
+ * {@link LevelSegmentTemplate}. The file is read into a heap buffer, which
+ * works for all backends including GWT and files packed into an apk or jar.
+ * Decoding and computing the tile geometry happens on the loader thread of the
+ * asset manager, the tileset textures are loaded as dependencies. Only the
+ * upload of the tile geometry happens on the GL thread.
+ *
+ * @author momsen
+ *
+ */
+public class LevelSegmentTemplateLoader
+		extends AsynchronousAssetLoader<LevelSegmentTemplate, LevelSegmentTemplateLoader.Parameter> {
+
+	public static class Parameter extends AssetLoaderParameters<LevelSegmentTemplate> {
+	}
+
+	/**
+	 * Shader of all tile caches, see {@link TileLayerCache#createShader()}
+	 */
+	private final TileLayerCache.SharedShader tileShader;
+
+	/**
+	 * Segment decoded while resolving the dependencies
+	 */
+	private LevelSegmentData data;
+
+	/**
+	 * Tile geometry prepared on the loader thread
+	 */
+	private TileLayerCache tileLayerCache;
+
+	/**
+	 * Skyline prepared on the loader thread
+	 */
+	private SegmentSkyline skyline;
+
+	/**
+	 * Creates the loader.
+	 *
+	 * @param tileShader
+	 *            shader of all tile caches, see
+	 *            {@link TileLayerCache#createShader()}, has to outlive the
+	 *            loaded templates
+	 */
+	public LevelSegmentTemplateLoader(TileLayerCache.SharedShader tileShader) {
+		super(new InternalFileHandleResolver());
+		this.tileShader = tileShader;
+	}
+
+	/**
+	 * Runs on the loader thread: computes the tile geometry, which is everything
+	 * that does not need the GL context.
+	 */
+	@Override
+	public void loadAsync(AssetManager manager, String fileName, FileHandle file, Parameter parameter) {
+		final Texture[] tilesetTextures = new Texture[data.tilesets.length];
+		for (int i = 0; i < tilesetTextures.length; i++) {
+			final FileHandle image = resolveTilesetImage(file, data.tilesets[i]);
+			tilesetTextures[i] = manager.get(image.path(), Texture.class);
+		}
+
+		tileLayerCache = TileLayerCache.prepare(TileLayerBuilder.build(data, tilesetTextures), data.layers);
+		skyline = SegmentSkyline.build(data);
+	}
+
+	@Override
+	public LevelSegmentTemplate loadSync(AssetManager manager, String fileName, FileHandle file,
+			Parameter parameter) {
+		tileLayerCache.upload(tileShader);
+		final LevelSegmentTemplate template = new LevelSegmentTemplate(fileName, data, tileLayerCache, skyline);
+		data = null;
+		tileLayerCache = null;
+		skyline = null;
+		return template;
+	}
+
+	@SuppressWarnings("rawtypes")
+	@Override
+	public Array<AssetDescriptor> getDependencies(String fileName, FileHandle file, Parameter parameter) {
+		data = LevelSegmentData.read(ByteBuffer.wrap(file.readBytes()));
+
+		final Array<AssetDescriptor> dependencies = new Array<AssetDescriptor>();
+		for (final LevelSegmentData.Tileset tileset : data.tilesets) {
+			dependencies.add(new AssetDescriptor<Texture>(resolveTilesetImage(file, tileset), Texture.class));
+		}
+		return dependencies;
+	}
+
+	/**
+	 * Resolves the file handle of a tileset image relative to the segment
+	 * file.
+	 *
+	 * @param segmentFile
+	 *            compiled segment file
+	 * @param tileset
+	 *            tileset of the segment
+	 * @return tileset image file
+	 */
+	public static FileHandle resolveTilesetImage(FileHandle segmentFile, LevelSegmentData.Tileset tileset) {
+		return segmentFile.sibling(tileset.imagePath);
+	}
+}
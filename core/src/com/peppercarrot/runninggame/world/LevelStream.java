@@ -5,25 +5,23 @@ import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
 
+import com.badlogic.gdx.Application;
 import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.assets.AssetManager;
 import com.badlogic.gdx.graphics.OrthographicCamera;
-import com.badlogic.gdx.graphics.g2d.Batch;
-import com.badlogic.gdx.maps.tiled.TiledMap;
-import com.badlogic.gdx.maps.tiled.TiledMapRenderer;
-import com.badlogic.gdx.maps.tiled.renderers.BatchTiledMapRenderer;
-import com.badlogic.gdx.maps.tiled.renderers.OrthogonalTiledMapRenderer;
 import com.badlogic.gdx.math.Circle;
-import com.badlogic.gdx.math.Rectangle;
 import com.badlogic.gdx.math.Vector2;
 import com.badlogic.gdx.scenes.scene2d.Actor;
-import com.badlogic.gdx.scenes.scene2d.Group;
 import com.badlogic.gdx.utils.Queue;
+import com.badlogic.gdx.utils.TimeUtils;
 import com.peppercarrot.runninggame.entities.Enemy;
 import com.peppercarrot.runninggame.entities.Potion;
+import com.peppercarrot.runninggame.world.collision.SweepAndPrune;
 
 /**
  * Level stream. Appends a new segment, when a currently one is to be finished.
+ * Keeps enough segments loaded ahead to cover a few seconds of scrolling at the
+ * current speed.
  * 
  * @author momsen
  *
@@ -31,10 +29,41 @@ import com.peppercarrot.runninggame.entities.Potion;
 public class LevelStream extends Actor {
 	private static final String LOG_TAG = LevelStream.class.getSimpleName();
 
+	/**
+	 * Seconds of scrolling which should be covered by prefetched segments
+	 */
+	private static final float PREFETCH_SECONDS = 3.0f;
+
+	/**
+	 * Seconds of scrolling before the right border at which the next segment
+	 * is inserted
+	 */
+	private static final float APPEND_AHEAD_SECONDS = 0.5f;
+
+	/**
+	 * Default distance in front of the viewport at which entity actors are
+	 * obtained
+	 */
+	private static final float DEFAULT_SPAWN_HORIZON = 95;
+
+	private static final int MIN_PREFETCHED_SEGMENTS = 1;
+
+	private static final int MAX_PREFETCHED_SEGMENTS = 4;
+
+	/**
+	 * Estimated heap size up to which unused segment templates are cached
+	 */
+	private static final int TEMPLATE_MEMORY_BUDGET = 2 * 1024 * 1024;
+
+	/**
+	 * Segment width assumed until the first segment is loaded
+	 */
+	private static final float DEFAULT_SEGMENT_WIDTH = 30 * 95;
+
 	/**
 	 * TODO: The segments have to be seperated by difficulty.
 	 */
-	private final List<String> allFiles = Arrays.asList("level1.tmx", "level2.tmx");
+	private final List<String> allFiles = Arrays.asList("level1.seg", "level2.seg");
 
 	private int lastLoadedIndex = 0;
 
@@ -45,6 +74,11 @@ public class LevelStream extends Actor {
 	 */
 	private final AssetManager assetManager = new AssetManager();
 
+	/**
+	 * Shader of the tile caches of all templates
+	 */
+	private final TileLayerCache.SharedShader tileShader = TileLayerCache.createShader();
+
 	/**
 	 * All segments in this scene
 	 */
@@ -56,15 +90,56 @@ public class LevelStream extends Actor {
 	private final List<LevelSegment> segmentsToRemove = new ArrayList<LevelSegment>();
 
 	/**
-	 * Name of the currently loaded asset
+	 * Templates of all loaded segments, which are decoded only once per file
+	 */
+	private final LevelSegmentTemplateCache templateCache = new LevelSegmentTemplateCache(assetManager,
+			TEMPLATE_MEMORY_BUDGET);
+
+	/**
+	 * Pools of the segments and their elements
+	 */
+	private final LevelSegmentPools pools;
+
+	/**
+	 * Files of all requested segments, which are not yet inserted, in
+	 * insertion order.
+	 */
+	private final Queue<String> pendingSegmentFiles = new Queue<String>();
+
+	/**
+	 * Whether streaming has been started
+	 */
+	private boolean started;
+
+	/**
+	 * Effective scroll speed of the world in pixel per second
+	 */
+	private float scrollSpeed;
+
+	/**
+	 * Distance in front of the right border of the viewport at which the
+	 * actors of enemies and potions are obtained. The actors are released
+	 * again at the same distance behind the left border.
+	 */
+	private float spawnHorizon = DEFAULT_SPAWN_HORIZON;
+
+	/**
+	 * Width of the last inserted segment, used to estimate how many segments
+	 * have to be prefetched.
+	 */
+	private float lastSegmentWidth = DEFAULT_SEGMENT_WIDTH;
+
+	/**
+	 * Number of times the world reached the end of the last segment while the
+	 * next segment was not loaded yet.
 	 */
-	private String currentlyLoadedSegmentName;
+	private int starvationCount;
 
 	/**
-	 * Never call {@link TiledMapRenderer#render()} on this instance, since the
-	 * map object will always be <code>null</code>
+	 * Whether the stream is currently waiting for a segment at the right
+	 * border
 	 */
-	private final BatchTiledMapRenderer renderer;
+	private boolean starving;
 
 	/**
 	 * Offset at which new segments should start (after the last segment)
@@ -78,43 +153,46 @@ public class LevelStream extends Actor {
 	private final float firstSegmentAdditionalStartOffset;
 
 	/**
-	 * World camera to render the segments.
+	 * World camera, defines the visible area.
 	 */
 	private final OrthographicCamera camera;
 
 	/**
-	 * Temp vector used for calculating near platforms.
+	 * Temp vector used for calculating platform tops.
 	 */
 	private final Vector2 tempVector = new Vector2();
 
 	/**
-	 * Temp rectangle used for calculating near enemies and potions.
+	 * Temp circle used for calculating near platforms, enemies and potions.
 	 */
-	private final Rectangle tempRect = new Rectangle();
+	private final Circle tempCircle = new Circle();
 
 	/**
-	 * Temp circle used for calculating near enemies and potions.
+	 * World layers to which the level segment elements should be added to.
 	 */
-	private final Circle tempCircle = new Circle();
+	private final WorldLayers layers;
+
+	/**
+	 * Number of frames the currently loaded segment has been streamed.
+	 */
+	private int streamingFrames;
 
 	/**
-	 * World group to which the level segment elements should be added to.
+	 * Render thread time spent on streaming the currently loaded segment.
 	 */
-	private final Group worldGroup;
+	private long streamingTotalNanos;
 
 	/**
-	 * Runner to calculate level segment elements z indices.
+	 * Most expensive frame while streaming the currently loaded segment.
 	 */
-	private final Actor runner;
+	private long streamingMaxNanos;
 
-	public LevelStream(OrthographicCamera camera, Batch batch, float segmentStartOffset,
-			float firstSegmentAdditionalStartOffset, Group worldGroup, Actor runner) {
+	public LevelStream(OrthographicCamera camera, float segmentStartOffset,
+			float firstSegmentAdditionalStartOffset, WorldLayers layers) {
 		this.camera = camera;
-		this.worldGroup = worldGroup;
-		this.runner = runner;
-		this.renderer = new OrthogonalTiledMapRenderer(null, batch);
-		this.assetManager.setLoader(LevelSegment.class, new LevelSegmentLoader(camera, renderer));
-		this.assetManager.setLoader(TiledMap.class, new LevelSegmentTmxLoader());
+		this.layers = layers;
+		this.assetManager.setLoader(LevelSegmentTemplate.class, new LevelSegmentTemplateLoader(tileShader));
+		this.pools = new LevelSegmentPools();
 		this.segmentStartOffset = segmentStartOffset;
 		this.firstSegmentAdditionalStartOffset = firstSegmentAdditionalStartOffset;
 	}
@@ -123,7 +201,89 @@ public class LevelStream extends Actor {
 	 * Starts streaming the segments
 	 */
 	public void start() {
-		if (currentlyLoadedSegmentName == null) {
+		if (!started) {
+			started = true;
+			prefetchSegments();
+		}
+	}
+
+	/**
+	 * Sets the effective scroll speed, which defines how many segments are
+	 * prefetched and how early they are inserted.
+	 * 
+	 * @param scrollSpeed
+	 *            speed in pixel per second
+	 */
+	public void setScrollSpeed(float scrollSpeed) {
+		this.scrollSpeed = scrollSpeed;
+	}
+
+	/**
+	 * Sets the distance in front of the viewport at which enemy and potion
+	 * actors are obtained.
+	 * 
+	 * @param spawnHorizon
+	 *            distance in pixel
+	 */
+	public void setSpawnHorizon(float spawnHorizon) {
+		this.spawnHorizon = spawnHorizon;
+	}
+
+	public float getSpawnHorizon() {
+		return spawnHorizon;
+	}
+
+	/**
+	 * Number of segments which should be loaded ahead at the current scroll
+	 * speed.
+	 * 
+	 * @return number of prefetched segments
+	 */
+	public int getPrefetchCount() {
+		final int count = (int) Math.ceil(scrollSpeed * PREFETCH_SECONDS / lastSegmentWidth);
+		return Math.min(MAX_PREFETCHED_SEGMENTS, Math.max(MIN_PREFETCHED_SEGMENTS, count));
+	}
+
+	/**
+	 * Distance before the right border of the viewport at which the next
+	 * segment is inserted.
+	 * 
+	 * @return trigger distance in pixel
+	 */
+	public float getAppendDistance() {
+		return scrollSpeed * APPEND_AHEAD_SECONDS;
+	}
+
+	/**
+	 * Cache of the decoded segment templates, exposes hit and miss counts.
+	 * 
+	 * @return template cache
+	 */
+	public LevelSegmentTemplateCache getTemplateCache() {
+		return templateCache;
+	}
+
+	/**
+	 * Pools of all level content, exposes the allocation count.
+	 * 
+	 * @return pools
+	 */
+	public LevelSegmentPools getPools() {
+		return pools;
+	}
+
+	/**
+	 * Number of times the stream ran out of loaded segments.
+	 * 
+	 * @return starvation count
+	 */
+	public int getStarvationCount() {
+		return starvationCount;
+	}
+
+	private void prefetchSegments() {
+		final int prefetchCount = getPrefetchCount();
+		while (pendingSegmentFiles.size < prefetchCount) {
 			startLoadingNextLevelSegment();
 		}
 	}
@@ -132,47 +292,142 @@ public class LevelStream extends Actor {
 		final String currentFile = allFiles.get(lastLoadedIndex);
 		lastLoadedIndex = (lastLoadedIndex + 1) % allFiles.size();
 
-		currentlyLoadedSegmentName = "segment" + (levelIndex++);
-		assetManager.load(currentlyLoadedSegmentName, LevelSegment.class,
-				new LevelSegmentLoader.Parameter(currentFile));
-		Gdx.app.debug(LOG_TAG, "Started loading of level " + currentlyLoadedSegmentName);
+		templateCache.request(currentFile);
+		pendingSegmentFiles.addLast(currentFile);
 	}
 
 	@Override
 	public void act(float delta) {
 		super.act(delta);
+
+		if (!started) {
+			return;
+		}
+
+		final long streamingStart = TimeUtils.nanoTime();
+		prefetchSegments();
 		assetManager.update();
+		final LevelSegment appendedSegment = appendReadySegment();
+		measureStreamingFrame(TimeUtils.nanoTime() - streamingStart);
+		if (appendedSegment != null) {
+			logStreamingCost(appendedSegment);
+		}
+
+		updateEntityActors();
+		removeFinishedSegments();
+	}
 
+	/**
+	 * Obtains and releases the enemy and potion actors of all segments
+	 * depending on their distance to the viewport.
+	 */
+	private void updateEntityActors() {
+		final float spawnX = camera.viewportWidth + spawnHorizon;
+		for (int i = 0; i < segments.size; i++) {
+			segments.get(i).updateEntityActors(spawnX, -spawnHorizon);
+		}
+	}
+
+	/**
+	 * Culls the tiles and entities of all segments for the next draw.
+	 * 
+	 * @param culling
+	 */
+	public void cull(ViewportCulling culling) {
+		for (int i = 0; i < segments.size; i++) {
+			segments.get(i).cull(culling);
+		}
+	}
+
+	/**
+	 * Number of enemy and potion actors of all segments.
+	 * 
+	 * @return actor count
+	 */
+	public int getEntityActorCount() {
+		int count = 0;
+		for (int i = 0; i < segments.size; i++) {
+			count += segments.get(i).getEntityActorCount();
+		}
+		return count;
+	}
+
+	/**
+	 * Appends the next segment, if it is loaded and needed.
+	 * 
+	 * @return appended segment or <code>null</code>
+	 */
+	private LevelSegment appendReadySegment() {
 		if (segments.size == 0) {
 			// insert first segment
 			if (nextLevelSegmentReady()) {
-				appendNextSegment(firstSegmentAdditionalStartOffset);
-				startLoadingNextLevelSegment();
+				return appendNextSegment(firstSegmentAdditionalStartOffset);
 			}
 		} else {
 			final LevelSegment last = segments.last();
-			if (reachedRightBorder(last)) {
-				Gdx.app.debug(LOG_TAG, "Should append next says " + last.getAssetName());
+			if (reachedAppendDistance(last)) {
 				if (nextLevelSegmentReady()) {
-					appendNextSegment(last.getRightX());
-					startLoadingNextLevelSegment();
+					starving = false;
+					return appendNextSegment(last.getRightX());
+				}
+
+				if (reachedRightBorder(last) && !starving) {
+					starving = true;
+					starvationCount++;
+					Gdx.app.log(LOG_TAG, "Segment starvation #" + starvationCount + " at scroll speed "
+							+ scrollSpeed + ", waiting for " + pendingSegmentFiles.first());
 				}
 			}
 		}
 
-		removeFinishedSegments();
+		return null;
+	}
+
+	/**
+	 * Tracks the render thread cost of streaming. Logs the total, worst and
+	 * average frame time once a segment has been inserted.
+	 * 
+	 * @param nanos
+	 *            streaming time of this frame
+	 */
+	private void measureStreamingFrame(long nanos) {
+		streamingFrames++;
+		streamingTotalNanos += nanos;
+		if (nanos > streamingMaxNanos) {
+			streamingMaxNanos = nanos;
+		}
+	}
+
+	private void logStreamingCost(LevelSegment segment) {
+		if (streamingFrames > 0 && Gdx.app.getLogLevel() >= Application.LOG_DEBUG) {
+			Gdx.app.debug(LOG_TAG,
+					"Streaming of segment " + segment.getIndex() + " took " + streamingFrames + " frames, total "
+							+ streamingTotalNanos / 1000 + "us, max " + streamingMaxNanos / 1000 + "us, avg "
+							+ streamingTotalNanos / streamingFrames / 1000 + "us per frame");
+		}
+		streamingFrames = 0;
+		streamingTotalNanos = 0;
+		streamingMaxNanos = 0;
 	}
 
 	private boolean nextLevelSegmentReady() {
-		return assetManager.isLoaded(currentlyLoadedSegmentName);
+		return pendingSegmentFiles.size > 0 && templateCache.isLoaded(pendingSegmentFiles.first());
 	}
 
-	private void appendNextSegment(float additionalOffset) {
+	private LevelSegment appendNextSegment(float additionalOffset) {
 		final LevelSegment segment = getNextLevelSegment();
-		segment.addToWorld(worldGroup, runner, additionalOffset + segmentStartOffset, getY());
+		segment.addToWorld(layers, additionalOffset + segmentStartOffset, getY());
 		segments.addLast(segment);
-
-		Gdx.app.debug(LOG_TAG, "Completely loaded level " + segment.getAssetName() + ". Inserting into stage");
+		lastSegmentWidth = segment.getRightX() - segment.getX();
+
+		if (Gdx.app.getLogLevel() >= Application.LOG_DEBUG) {
+			Gdx.app.debug(LOG_TAG, "Completely loaded level segment " + segment.getIndex() + ". Inserting into stage");
+			Gdx.app.debug(LOG_TAG, "Template cache hits " + templateCache.getHits() + ", misses "
+					+ templateCache.getMisses() + ", evictions " + templateCache.getEvictions());
+			Gdx.app.debug(LOG_TAG, "Level content allocations " + pools.getAllocationCount() + ", entity actors "
+					+ getEntityActorCount());
+		}
+		return segment;
 	}
 
 	private LevelSegment getNextLevelSegment() {
@@ -180,7 +435,12 @@ public class LevelStream extends Actor {
 			return null;
 		}
 
-		return assetManager.get(currentlyLoadedSegmentName, LevelSegment.class);
+		final LevelSegmentTemplate template = templateCache.get(pendingSegmentFiles.removeFirst());
+		return pools.obtainSegment(levelIndex++, template);
+	}
+
+	private boolean reachedAppendDistance(LevelSegment segment) {
+		return segment.getRightX() <= camera.viewportWidth + getAppendDistance();
 	}
 
 	private boolean reachedRightBorder(LevelSegment segment) {
@@ -192,27 +452,31 @@ public class LevelStream extends Actor {
 	}
 
 	private void removeSegment(LevelSegment segment) {
-		segment.removeFromWorld(worldGroup);
-		if (!currentlyLoadedSegmentName.equals(segment.getAssetName())) {
-			assetManager.unload(segment.getAssetName());
+		segment.removeFromWorld();
+		templateCache.release(segment.getTemplate());
+		if (Gdx.app.getLogLevel() >= Application.LOG_DEBUG) {
+			Gdx.app.debug(LOG_TAG, "Removing segment " + segment.getIndex());
 		}
-		Gdx.app.debug(LOG_TAG, "Removing segment " + segment.getAssetName());
+		pools.free(segment);
 	}
 
 	private void removeFinishedSegments() {
 		for (final Iterator<LevelSegment> iterator = segments.iterator(); iterator.hasNext();) {
 			final LevelSegment segment = iterator.next();
 			if (reachedLeftBorder(segment)) {
-				Gdx.app.debug(LOG_TAG, "Should remove " + segment.getAssetName());
+				if (Gdx.app.getLogLevel() >= Application.LOG_DEBUG) {
+					Gdx.app.debug(LOG_TAG, "Should remove segment " + segment.getIndex());
+				}
 				segmentsToRemove.add(segment);
 			} else {
 				break;
 			}
 		}
 
-		for (final LevelSegment segment : segmentsToRemove) {
-			removeSegment(segment);
+		for (int i = 0; i < segmentsToRemove.size(); i++) {
+			final LevelSegment segment = segmentsToRemove.get(i);
 			segments.removeValue(segment, true);
+			removeSegment(segment);
 		}
 		segmentsToRemove.clear();
 	}
@@ -223,8 +487,8 @@ public class LevelStream extends Actor {
 	 * @param offset
 	 */
 	public void moveLeft(float offset) {
-		for (final LevelSegment segment : segments) {
-			segment.moveLeft(offset);
+		for (int i = 0; i < segments.size; i++) {
+			segments.get(i).moveLeft(offset);
 		}
 	}
 
@@ -238,18 +502,91 @@ public class LevelStream extends Actor {
 	 * @return
 	 */
 	public void getPlatformsNear(float centerX, float centerY, float radius, List<Platform> nearPlatforms) {
-		tempCircle.radius = radius;
-		tempCircle.x = centerX;
-		tempCircle.y = centerY;
+		tempCircle.set(centerX, centerY, radius);
 
 		nearPlatforms.clear();
-		for (final LevelSegment segment : segments) {
-			if (segment.getX() <= centerX + radius || centerX - radius <= segment.getRightX()) {
-				for (final Platform p : segment.getPlatforms()) {
-					p.retrieveAbsolutePosition(tempVector);
-					if (tempCircle.contains(tempVector.x, tempVector.y)) {
-						nearPlatforms.add(p);
-					}
+		for (int i = 0; i < segments.size; i++) {
+			segments.get(i).getPlatformsNear(tempCircle, nearPlatforms);
+		}
+	}
+
+	/**
+	 * Finds the first platform a box lands on during the last simulation
+	 * step, see {@link LevelSegment#findLanding(float, float, float, float, float)}.
+	 * Looks up the skylines of the segments, so no platforms are scanned.
+	 * 
+	 * @param fromX
+	 *            left border
+	 * @param toX
+	 *            right border
+	 * @param startY
+	 *            bottom at the beginning of the step
+	 * @param endY
+	 *            bottom at the end of the step
+	 * @param scroll
+	 *            distance the level moved to the left during the step
+	 * @return platform or <code>null</code>
+	 */
+	public Platform findLanding(float fromX, float toX, float startY, float endY, float scroll) {
+		Platform result = null;
+		float resultTop = 0;
+		for (int i = 0; i < segments.size; i++) {
+			final Platform platform = segments.get(i).findLanding(fromX, toX, startY, endY, scroll);
+			if (platform != null) {
+				platform.retrieveAbsolutePosition(tempVector);
+				final float top = tempVector.y + platform.getH();
+				if (result == null || top > resultTop) {
+					result = platform;
+					resultTop = top;
+				}
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Gets the height of the highest platform top at or below a given
+	 * position, e.g. to check what is ahead of the runner. The ground is not
+	 * included.
+	 * 
+	 * @param posX
+	 * @param posY
+	 * @return platform top or {@link Float#NEGATIVE_INFINITY}, if there is no
+	 *         platform below or no segment at this position
+	 */
+	public float getSurfaceBelow(float posX, float posY) {
+		for (int i = 0; i < segments.size; i++) {
+			final LevelSegment segment = segments.get(i);
+			if (segment.getX() <= posX && posX < segment.getRightX()) {
+				return segment.getSurfaceBelow(posX, posY);
+			}
+		}
+		return Float.NEGATIVE_INFINITY;
+	}
+
+	/**
+	 * Adds the hitboxes of all enemies and potions of the active segments to
+	 * the broadphase.
+	 * 
+	 * @param broadphase
+	 */
+	public void addHitboxes(SweepAndPrune broadphase) {
+		for (int i = 0; i < segments.size; i++) {
+			final LevelSegment segment = segments.get(i);
+			// Killed enemies and collected potions can not be hit anymore,
+			// entities without actor are outside of the spawn horizon
+			final EntityStore enemyStore = segment.getEnemyStore();
+			final List<Enemy> enemies = segment.getEnemies();
+			for (int j = enemyStore.nextActive(0); j >= 0; j = enemyStore.nextActive(j + 1)) {
+				if (enemies.get(j) != null) {
+					broadphase.addEnemy(enemies.get(j));
+				}
+			}
+			final EntityStore potionStore = segment.getPotionStore();
+			final List<Potion> potions = segment.getPotions();
+			for (int j = potionStore.nextActive(0); j >= 0; j = potionStore.nextActive(j + 1)) {
+				if (potions.get(j) != null) {
+					broadphase.addPotion(potions.get(j));
 				}
 			}
 		}
@@ -265,20 +602,11 @@ public class LevelStream extends Actor {
 	 * @return
 	 */
 	public void getEnemiesNear(float centerX, float centerY, float radius, List<Enemy> nearEnemies) {
-		tempCircle.radius = radius;
-		tempCircle.x = centerX;
-		tempCircle.y = centerY;
+		tempCircle.set(centerX, centerY, radius);
 
 		nearEnemies.clear();
-		for (final LevelSegment segment : segments) {
-			if (segment.getX() <= centerX + radius || centerX - radius <= segment.getRightX()) {
-				for (final Enemy e : segment.getEnemies()) {
-					e.retrieveHitbox(tempRect);
-					if (tempCircle.contains(tempRect.x, tempRect.y)) {
-						nearEnemies.add(e);
-					}
-				}
-			}
+		for (int i = 0; i < segments.size; i++) {
+			segments.get(i).getEnemiesNear(tempCircle, nearEnemies);
 		}
 	}
 
@@ -292,20 +620,19 @@ public class LevelStream extends Actor {
 	 * @return
 	 */
 	public void getPotionsNear(float centerX, float centerY, float radius, List<Potion> nearPotions) {
-		tempCircle.radius = radius;
-		tempCircle.x = centerX;
-		tempCircle.y = centerY;
+		tempCircle.set(centerX, centerY, radius);
 
 		nearPotions.clear();
-		for (final LevelSegment segment : segments) {
-			if (segment.getX() <= centerX + radius || centerX - radius <= segment.getRightX()) {
-				for (final Potion p : segment.getPotions()) {
-					p.retrieveHitbox(tempRect);
-					if (tempCircle.contains(tempRect.x, tempRect.y)) {
-						nearPotions.add(p);
-					}
-				}
-			}
+		for (int i = 0; i < segments.size; i++) {
+			segments.get(i).getPotionsNear(tempCircle, nearPotions);
 		}
 	}
+
+	/**
+	 * Unloads all templates including their tile caches.
+	 */
+	public void dispose() {
+		assetManager.dispose();
+		tileShader.release();
+	}
 }
@@ -7,8 +7,8 @@ import com.badlogic.gdx.math.Vector2;
 public class Platform {
 
 	private final LevelSegment parent;
-	private final float w;
-	private final float h;
+	private float w;
+	private float h;
 	private final Vector2 relativePosition;
 
 	public Platform(LevelSegment levelSegment, float x, float y, float w, float h) {
@@ -18,6 +18,15 @@ public class Platform {
 		this.h = h;
 	}
 
+	/**
+	 * Reinitializes this platform when its segment is reused.
+	 */
+	void set(float x, float y, float w, float h) {
+		relativePosition.set(x, y);
+		this.w = w;
+		this.h = h;
+	}
+
 	public void retrieveAbsolutePosition(Vector2 position) {
 		position.set(relativePosition);
 		position.x += parent.getX();
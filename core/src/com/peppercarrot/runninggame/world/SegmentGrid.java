@@ -0,0 +1,170 @@
+package com.peppercarrot.runninggame.world;
+
+import com.badlogic.gdx.utils.IntArray;
+
+/**
+ * Uniform grid over the area of a level segment. Every item is stored in the
+ * cell containing its reference point (e.g. the bottom left corner of its
+ * hitbox). A query only visits the cells overlapping the query region, so its
+ * cost does not depend on the number of items in the segment.
+ *
+ * The grid does not pay off for few items: with uniformly placed items, see
+ * SegmentGridBenchmark, a query costs up to twice as much as a linear scan
+ * below about 50 items per segment (tens of nanoseconds either way), breaks
+ * even at about 70 to 100 items and is faster from there on. A linear
+ * fallback for small segments was measured as well, but copying all items
+ * into the candidates cost more than visiting the cells, so it was dropped.
+ *
+ * The items of all cells are stored in one array, sorted by cell. All arrays
+ * are reused when the grid is rebuilt.
+ *
+ * @author momsen
+ *
+ */
+public class SegmentGrid {
+
+	private float cellSize = 1;
+
+	private int columns;
+
+	private int rows;
+
+	/**
+	 * Index of the first item of each cell in {@link #items}, followed by the
+	 * total number of items
+	 */
+	private int[] cellStarts = new int[1];
+
+	/**
+	 * Item indices ordered by cell
+	 */
+	private int[] items = new int[0];
+
+	/**
+	 * Cell of each item, only used while building
+	 */
+	private int[] itemCells = new int[0];
+
+	private int count;
+
+	private float minX;
+
+	private float minY;
+
+	private float maxX;
+
+	private float maxY;
+
+	/**
+	 * Builds the grid. Reference points outside of the given area are stored
+	 * in the nearest border cell.
+	 *
+	 * @param positions
+	 *            reference points of the items, x and y interleaved
+	 * @param count
+	 *            number of items
+	 * @param width
+	 *            width of the covered area
+	 * @param height
+	 *            height of the covered area
+	 * @param cellSize
+	 *            edge length of a cell
+	 */
+	public void build(float[] positions, int count, float width, float height, float cellSize) {
+		this.cellSize = cellSize;
+		this.count = count;
+		columns = Math.max(1, (int) Math.ceil(width / cellSize));
+		rows = Math.max(1, (int) Math.ceil(height / cellSize));
+
+		final int cellCount = columns * rows;
+		if (cellStarts.length < cellCount + 1) {
+			cellStarts = new int[cellCount + 1];
+		}
+		if (items.length < count) {
+			items = new int[count];
+			itemCells = new int[count];
+		}
+
+		for (int i = 0; i <= cellCount; i++) {
+			cellStarts[i] = 0;
+		}
+
+		minX = Float.MAX_VALUE;
+		minY = Float.MAX_VALUE;
+		maxX = -Float.MAX_VALUE;
+		maxY = -Float.MAX_VALUE;
+
+		// Count the items per cell...
+		for (int i = 0; i < count; i++) {
+			final float x = positions[i * 2];
+			final float y = positions[i * 2 + 1];
+			minX = Math.min(minX, x);
+			minY = Math.min(minY, y);
+			maxX = Math.max(maxX, x);
+			maxY = Math.max(maxY, y);
+
+			final int cell = row(y) * columns + column(x);
+			itemCells[i] = cell;
+			cellStarts[cell]++;
+		}
+
+		// ...sum them up to the end of each cell...
+		for (int i = 1; i < cellCount; i++) {
+			cellStarts[i] += cellStarts[i - 1];
+		}
+		cellStarts[cellCount] = count;
+
+		// ...and fill the cells backwards, which moves each end to the start
+		// and keeps the items of a cell in their original order.
+		for (int i = count - 1; i >= 0; i--) {
+			items[--cellStarts[itemCells[i]]] = i;
+		}
+	}
+
+	/**
+	 * Adds the indices of all items of the cells overlapping the given region.
+	 * The caller has to check the candidates exactly.
+	 *
+	 * @param fromX
+	 *            left border of the region
+	 * @param fromY
+	 *            bottom border of the region
+	 * @param toX
+	 *            right border of the region
+	 * @param toY
+	 *            top border of the region
+	 * @param candidates
+	 *            result, the indices are appended
+	 */
+	public void query(float fromX, float fromY, float toX, float toY, IntArray candidates) {
+		if (count == 0 || toX < minX || fromX > maxX || toY < minY || fromY > maxY) {
+			return;
+		}
+
+		final int fromColumn = column(fromX);
+		final int toColumn = column(toX);
+		final int fromRow = row(fromY);
+		final int toRow = row(toY);
+
+		for (int row = fromRow; row <= toRow; row++) {
+			final int rowStart = row * columns;
+			// Cells of a row are consecutive
+			final int end = cellStarts[rowStart + toColumn + 1];
+			for (int i = cellStarts[rowStart + fromColumn]; i < end; i++) {
+				candidates.add(items[i]);
+			}
+		}
+	}
+
+	public int getCount() {
+		return count;
+	}
+
+	private int column(float x) {
+		return Math.min(columns - 1, Math.max(0, (int) Math.floor(x / cellSize)));
+	}
+
+	private int row(float y) {
+		return Math.min(rows - 1, Math.max(0, (int) Math.floor(y / cellSize)));
+	}
+}
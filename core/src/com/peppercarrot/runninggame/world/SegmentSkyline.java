@@ -0,0 +1,211 @@
+package com.peppercarrot.runninggame.world;
+
+/**
+ * Walkable surface heights of a level segment per tile column. Each column
+ * contains the tops of all platforms covering it in ascending order, so a
+ * landing check is a lookup by column and a binary search instead of a scan
+ * over all platforms. All heights are relative to the bottom of the segment.
+ *
+ * The surfaces of all columns are stored in one array, sorted by column. The
+ * skyline does not reference any GL resources and is built while loading the
+ * template.
+ *
+ * @author momsen
+ *
+ */
+public class SegmentSkyline {
+
+	private final float columnWidth;
+
+	private final int columnCount;
+
+	/**
+	 * Index of the first surface of each column, followed by the total number
+	 * of surfaces
+	 */
+	private final int[] columnStarts;
+
+	/**
+	 * Surface heights ordered by column and height
+	 */
+	private final float[] surfaces;
+
+	/**
+	 * Index of the platform of each surface in
+	 * {@link LevelSegmentData#platforms}
+	 */
+	private final int[] platformIndices;
+
+	private SegmentSkyline(float columnWidth, int columnCount, int[] columnStarts, float[] surfaces,
+			int[] platformIndices) {
+		this.columnWidth = columnWidth;
+		this.columnCount = columnCount;
+		this.columnStarts = columnStarts;
+		this.surfaces = surfaces;
+		this.platformIndices = platformIndices;
+	}
+
+	/**
+	 * Builds the skyline from the platforms of a segment.
+	 *
+	 * @param data
+	 *            decoded segment
+	 * @return skyline
+	 */
+	public static SegmentSkyline build(LevelSegmentData data) {
+		final float columnWidth = data.tileWidth;
+		final int columnCount = Math.max(1, data.width);
+		final float[] rects = data.platforms;
+		final int platformCount = data.getPlatformCount();
+
+		// Count the surfaces per column...
+		final int[] columnStarts = new int[columnCount + 1];
+		for (int i = 0; i < platformCount; i++) {
+			final int to = lastColumn(rects, i, columnWidth, columnCount);
+			for (int column = firstColumn(rects, i, columnWidth, columnCount); column <= to; column++) {
+				columnStarts[column + 1]++;
+			}
+		}
+
+		// ...sum them up to the start of each column...
+		for (int i = 1; i <= columnCount; i++) {
+			columnStarts[i] += columnStarts[i - 1];
+		}
+
+		// ...fill the columns...
+		final int surfaceCount = columnStarts[columnCount];
+		final float[] surfaces = new float[surfaceCount];
+		final int[] platformIndices = new int[surfaceCount];
+		final int[] columnEnds = new int[columnCount];
+		System.arraycopy(columnStarts, 0, columnEnds, 0, columnCount);
+		for (int i = 0; i < platformCount; i++) {
+			final float top = rects[i * 4 + 1] + rects[i * 4 + 3];
+			final int to = lastColumn(rects, i, columnWidth, columnCount);
+			for (int column = firstColumn(rects, i, columnWidth, columnCount); column <= to; column++) {
+				final int index = columnEnds[column]++;
+				surfaces[index] = top;
+				platformIndices[index] = i;
+			}
+		}
+
+		// ...and sort each column by height. Columns only contain a few
+		// surfaces, so insertion sort is sufficient.
+		for (int column = 0; column < columnCount; column++) {
+			final int end = columnStarts[column + 1];
+			for (int i = columnStarts[column] + 1; i < end; i++) {
+				final float surface = surfaces[i];
+				final int platformIndex = platformIndices[i];
+				int j = i - 1;
+				while (j >= columnStarts[column] && surfaces[j] > surface) {
+					surfaces[j + 1] = surfaces[j];
+					platformIndices[j + 1] = platformIndices[j];
+					j--;
+				}
+				surfaces[j + 1] = surface;
+				platformIndices[j + 1] = platformIndex;
+			}
+		}
+
+		return new SegmentSkyline(columnWidth, columnCount, columnStarts, surfaces, platformIndices);
+	}
+
+	private static int firstColumn(float[] rects, int platform, float columnWidth, int columnCount) {
+		final int column = (int) Math.floor(rects[platform * 4] / columnWidth);
+		return Math.max(0, Math.min(columnCount - 1, column));
+	}
+
+	private static int lastColumn(float[] rects, int platform, float columnWidth, int columnCount) {
+		final float right = rects[platform * 4] + rects[platform * 4 + 2];
+		final int column = (int) Math.ceil(right / columnWidth) - 1;
+		return Math.max(0, Math.min(columnCount - 1, column));
+	}
+
+	/**
+	 * Gets the column containing a local x position, clamped to the segment.
+	 *
+	 * @param x
+	 *            x position relative to the segment
+	 * @return column
+	 */
+	public int getColumn(float x) {
+		return Math.max(0, Math.min(columnCount - 1, (int) Math.floor(x / columnWidth)));
+	}
+
+	public int getColumnCount() {
+		return columnCount;
+	}
+
+	public float getColumnWidth() {
+		return columnWidth;
+	}
+
+	/**
+	 * Finds the highest surface of a column at or below the given height.
+	 *
+	 * @param column
+	 *            column
+	 * @param y
+	 *            height
+	 * @return surface index or -1, if there is no surface below
+	 */
+	public int findSurfaceBelow(int column, float y) {
+		// Binary search for the last surface of the column at or below y
+		int low = columnStarts[column];
+		int high = columnStarts[column + 1] - 1;
+		int result = -1;
+		while (low <= high) {
+			final int mid = (low + high) >>> 1;
+			if (surfaces[mid] <= y) {
+				result = mid;
+				low = mid + 1;
+			} else {
+				high = mid - 1;
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Index of the lowest surface of a column. Surfaces of a column are
+	 * ordered by height, so the surfaces below a surface are the ones with a
+	 * lower index down to this one.
+	 *
+	 * @param column
+	 *            column
+	 * @return surface index
+	 */
+	public int getFirstSurface(int column) {
+		return columnStarts[column];
+	}
+
+	/**
+	 * Height of a surface relative to the bottom of the segment.
+	 *
+	 * @param surface
+	 *            surface index
+	 * @return height
+	 */
+	public float getSurface(int surface) {
+		return surfaces[surface];
+	}
+
+	/**
+	 * Index of the platform forming a surface.
+	 *
+	 * @param surface
+	 *            surface index
+	 * @return platform index
+	 */
+	public int getPlatformIndex(int surface) {
+		return platformIndices[surface];
+	}
+
+	/**
+	 * Estimated heap size in bytes.
+	 *
+	 * @return size in bytes
+	 */
+	public int getEstimatedSize() {
+		return (columnStarts.length + surfaces.length + platformIndices.length) * 4;
+	}
+}
@@ -0,0 +1,128 @@
+package com.peppercarrot.runninggame.world;
+
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.maps.tiled.TiledMapTile;
+import com.badlogic.gdx.maps.tiled.TiledMapTileLayer;
+import com.badlogic.gdx.maps.tiled.TiledMapTileLayer.Cell;
+import com.badlogic.gdx.maps.tiled.tiles.StaticTiledMapTile;
+import com.badlogic.gdx.utils.IntMap;
+
+/**
+ * Builds the tile layers of a compiled segment. Does not issue any GL calls,
+ * the tileset textures only have to be loaded, so this can run on the loader
+ * thread.
+ * 
+ * @author momsen
+ *
+ */
+public class TileLayerBuilder {
+
+	private static final int FLAG_FLIP_HORIZONTALLY = 0x80000000;
+
+	private static final int FLAG_FLIP_VERTICALLY = 0x40000000;
+
+	private static final int FLAG_FLIP_DIAGONALLY = 0x20000000;
+
+	private static final int MASK_CLEAR = 0xE0000000;
+
+	private TileLayerBuilder() {
+		// Utility class
+	}
+
+	/**
+	 * Builds one tile layer for each layer of the segment.
+	 * 
+	 * @param data
+	 *            compiled segment
+	 * @param tilesetTextures
+	 *            loaded textures in the order of {@link LevelSegmentData#tilesets}
+	 * @return tile layers in the order of {@link LevelSegmentData#layers}
+	 */
+	public static TiledMapTileLayer[] build(LevelSegmentData data, Texture[] tilesetTextures) {
+		final IntMap<TiledMapTile> tiles = new IntMap<TiledMapTile>();
+		final TiledMapTileLayer[] tileLayers = new TiledMapTileLayer[data.layers.length];
+		for (int i = 0; i < tileLayers.length; i++) {
+			tileLayers[i] = createTileLayer(data, data.layers[i], tilesetTextures, tiles);
+		}
+		return tileLayers;
+	}
+
+	private static TiledMapTileLayer createTileLayer(LevelSegmentData data, LevelSegmentData.Layer layer,
+			Texture[] tilesetTextures, IntMap<TiledMapTile> tiles) {
+		final TiledMapTileLayer tiledLayer = new TiledMapTileLayer(data.width, data.height, data.tileWidth,
+				data.tileHeight);
+
+		for (int row = 0; row < data.height; row++) {
+			for (int column = 0; column < data.width; column++) {
+				final int rawGid = layer.gids[row * data.width + column];
+				if (rawGid == 0) {
+					continue;
+				}
+
+				final int gid = rawGid & ~MASK_CLEAR;
+				TiledMapTile tile = tiles.get(gid);
+				if (tile == null) {
+					tile = createTile(data, tilesetTextures, gid);
+					tiles.put(gid, tile);
+				}
+
+				if (tile != null) {
+					tiledLayer.setCell(column, row, createCell(tile, rawGid));
+				}
+			}
+		}
+
+		return tiledLayer;
+	}
+
+	private static TiledMapTile createTile(LevelSegmentData data, Texture[] tilesetTextures, int gid) {
+		for (int i = data.tilesets.length - 1; i >= 0; i--) {
+			final LevelSegmentData.Tileset tileset = data.tilesets[i];
+			if (tileset.firstGid <= gid) {
+				final int localId = gid - tileset.firstGid;
+				final int columns = (tileset.imageWidth - 2 * tileset.margin + tileset.spacing)
+						/ (tileset.tileWidth + tileset.spacing);
+				final int x = tileset.margin + (localId % columns) * (tileset.tileWidth + tileset.spacing);
+				final int y = tileset.margin + (localId / columns) * (tileset.tileHeight + tileset.spacing);
+
+				final StaticTiledMapTile tile = new StaticTiledMapTile(
+						new TextureRegion(tilesetTextures[i], x, y, tileset.tileWidth, tileset.tileHeight));
+				tile.setId(gid);
+				return tile;
+			}
+		}
+
+		return null;
+	}
+
+	/**
+	 * Creates a cell and applies the tiled flip flags the same way as the
+	 * {@link com.badlogic.gdx.maps.tiled.TmxMapLoader} does.
+	 */
+	private static Cell createCell(TiledMapTile tile, int rawGid) {
+		final boolean flipHorizontally = (rawGid & FLAG_FLIP_HORIZONTALLY) != 0;
+		final boolean flipVertically = (rawGid & FLAG_FLIP_VERTICALLY) != 0;
+		final boolean flipDiagonally = (rawGid & FLAG_FLIP_DIAGONALLY) != 0;
+
+		final Cell cell = new Cell();
+		cell.setTile(tile);
+		if (flipDiagonally) {
+			if (flipHorizontally && flipVertically) {
+				cell.setFlipHorizontally(true);
+				cell.setRotation(Cell.ROTATE_270);
+			} else if (flipHorizontally) {
+				cell.setRotation(Cell.ROTATE_270);
+			} else if (flipVertically) {
+				cell.setRotation(Cell.ROTATE_90);
+			} else {
+				cell.setFlipVertically(true);
+				cell.setRotation(Cell.ROTATE_270);
+			}
+		} else {
+			cell.setFlipHorizontally(flipHorizontally);
+			cell.setFlipVertically(flipVertically);
+		}
+		return cell;
+	}
+}
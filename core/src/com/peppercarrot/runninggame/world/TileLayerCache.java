@@ -0,0 +1,495 @@
+package com.peppercarrot.runninggame.world;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.graphics.GL20;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.g2d.Batch;
+import com.badlogic.gdx.graphics.g2d.SpriteCache;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.graphics.glutils.ShaderProgram;
+import com.badlogic.gdx.maps.tiled.TiledMapTile;
+import com.badlogic.gdx.maps.tiled.TiledMapTileLayer;
+import com.badlogic.gdx.maps.tiled.TiledMapTileLayer.Cell;
+import com.badlogic.gdx.math.Matrix4;
+import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.Disposable;
+import com.badlogic.gdx.utils.FloatArray;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.badlogic.gdx.utils.IntArray;
+
+/**
+ * Static geometry of all tile layers of a segment template. The tiles never
+ * change, so their vertices are computed once and uploaded into a
+ * {@link SpriteCache}. Layers with the same z index are drawn directly after
+ * each other anyway, so they are merged into one group. Drawing a group is one
+ * draw call per change of the tileset texture, without any per tile work.
+ *
+ * The vertices are computed by
+ * {@link #prepare(TiledMapTileLayer[], LevelSegmentData.Layer[])} on the
+ * loader thread, {@link #upload(SharedShader)} has to be called on the GL
+ * thread.
+ *
+ * The vertices are white, the color of the batch is applied while drawing by
+ * the shader of {@link #createShader()}, which all caches share.
+ *
+ * @author momsen
+ *
+ */
+public class TileLayerCache implements Disposable {
+
+	/**
+	 * Floats per sprite: four vertices with position, color and texture
+	 * coordinates
+	 */
+	private static final int SPRITE_SIZE = 20;
+
+	private static final int X1 = 0, Y1 = 1, C1 = 2, U1 = 3, V1 = 4;
+	private static final int X2 = 5, Y2 = 6, C2 = 7, U2 = 8, V2 = 9;
+	private static final int X3 = 10, Y3 = 11, C3 = 12, U3 = 13, V3 = 14;
+	private static final int X4 = 15, Y4 = 16, C4 = 17, U4 = 18, V4 = 19;
+
+	/**
+	 * Floats per vertex
+	 */
+	private static final int VERTEX_SIZE = 5;
+
+	private static final int MIN_X = 0, MIN_Y = 1, MAX_X = 2, MAX_Y = 3;
+
+	private static final String TINT_UNIFORM = "u_tint";
+
+	private static final String VERTEX_SHADER = "attribute vec4 " + ShaderProgram.POSITION_ATTRIBUTE + ";\n" //
+			+ "attribute vec4 " + ShaderProgram.COLOR_ATTRIBUTE + ";\n" //
+			+ "attribute vec2 " + ShaderProgram.TEXCOORD_ATTRIBUTE + "0;\n" //
+			+ "uniform mat4 u_projectionViewMatrix;\n" //
+			+ "uniform vec4 " + TINT_UNIFORM + ";\n" //
+			+ "varying vec4 v_color;\n" //
+			+ "varying vec2 v_texCoords;\n" //
+			+ "void main()\n" //
+			+ "{\n" //
+			+ "   v_color = " + ShaderProgram.COLOR_ATTRIBUTE + ";\n" //
+			+ "   v_color.a = v_color.a * (255.0/254.0);\n" //
+			+ "   v_color = v_color * " + TINT_UNIFORM + ";\n" //
+			+ "   v_texCoords = " + ShaderProgram.TEXCOORD_ATTRIBUTE + "0;\n" //
+			+ "   gl_Position = u_projectionViewMatrix * " + ShaderProgram.POSITION_ATTRIBUTE + ";\n" //
+			+ "}\n";
+
+	private static final String FRAGMENT_SHADER = "#ifdef GL_ES\n" //
+			+ "precision mediump float;\n" //
+			+ "#endif\n" //
+			+ "varying vec4 v_color;\n" //
+			+ "varying vec2 v_texCoords;\n" //
+			+ "uniform sampler2D u_texture;\n" //
+			+ "void main()\n" //
+			+ "{\n" //
+			+ "  gl_FragColor = v_color * texture2D(u_texture, v_texCoords);\n" //
+			+ "}";
+
+	/**
+	 * Number of render calls of all tile layer caches since the last
+	 * {@link #resetRenderCalls()}
+	 */
+	private static int renderCalls;
+
+	/**
+	 * Z index of each group
+	 */
+	private final int[] zIndices;
+
+	/**
+	 * Texture of each run of sprites of each group
+	 */
+	private final Texture[][] groupTextures;
+
+	/**
+	 * Vertices of each run of sprites of each group, only kept until the
+	 * upload
+	 */
+	private float[][][] groupVertices;
+
+	/**
+	 * Four values per group, see {@link #MIN_X} etc.
+	 */
+	private final float[] groupBounds;
+
+	private final int[] cacheIds;
+
+	private final int spriteCount;
+
+	private SpriteCache spriteCache;
+
+	private SharedShader shader;
+
+	private final Matrix4 tempTransform = new Matrix4();
+
+	private TileLayerCache(int[] zIndices, Texture[][] groupTextures, float[][][] groupVertices, int spriteCount) {
+		this.zIndices = zIndices;
+		this.groupTextures = groupTextures;
+		this.groupVertices = groupVertices;
+		this.spriteCount = spriteCount;
+		this.cacheIds = new int[zIndices.length];
+		this.groupBounds = new float[zIndices.length * 4];
+		for (int i = 0; i < groupVertices.length; i++) {
+			computeBounds(groupVertices[i], i * 4);
+		}
+	}
+
+	/**
+	 * Computes the bounds of all vertices of a group. Tile images can be
+	 * larger than the cells, so the bounds can exceed the segment.
+	 */
+	private void computeBounds(float[][] runs, int offset) {
+		float minX = Float.MAX_VALUE;
+		float minY = Float.MAX_VALUE;
+		float maxX = -Float.MAX_VALUE;
+		float maxY = -Float.MAX_VALUE;
+		for (final float[] vertices : runs) {
+			for (int i = 0; i < vertices.length; i += VERTEX_SIZE) {
+				minX = Math.min(minX, vertices[i + X1]);
+				minY = Math.min(minY, vertices[i + Y1]);
+				maxX = Math.max(maxX, vertices[i + X1]);
+				maxY = Math.max(maxY, vertices[i + Y1]);
+			}
+		}
+
+		if (minX > maxX) {
+			// Empty group
+			minX = minY = maxX = maxY = 0;
+		}
+		groupBounds[offset + MIN_X] = minX;
+		groupBounds[offset + MIN_Y] = minY;
+		groupBounds[offset + MAX_X] = maxX;
+		groupBounds[offset + MAX_Y] = maxY;
+	}
+
+	/**
+	 * Computes the vertices of all layers, grouped by z index. Inside a group
+	 * the layers keep their order, the tiles of a layer are ordered by
+	 * texture. Does not issue any GL calls.
+	 *
+	 * @param tileLayers
+	 *            tile layers of the segment
+	 * @param layers
+	 *            layer definitions in the same order, containing the z
+	 *            indices
+	 * @return cache, which still has to be uploaded
+	 */
+	public static TileLayerCache prepare(TiledMapTileLayer[] tileLayers, LevelSegmentData.Layer[] layers) {
+		final IntArray zIndices = new IntArray();
+		for (int i = 0; i < layers.length; i++) {
+			if (!zIndices.contains(layers[i].zIndex)) {
+				zIndices.add(layers[i].zIndex);
+			}
+		}
+
+		final Texture[][] groupTextures = new Texture[zIndices.size][];
+		final float[][][] groupVertices = new float[zIndices.size][][];
+		final float color = Color.WHITE.toFloatBits();
+		final float[] vertices = new float[SPRITE_SIZE];
+		final Array<Texture> layerTextures = new Array<Texture>();
+		final Array<FloatArray> layerVertices = new Array<FloatArray>();
+		int spriteCount = 0;
+
+		for (int group = 0; group < zIndices.size; group++) {
+			final Array<Texture> runTextures = new Array<Texture>();
+			final Array<FloatArray> runVertices = new Array<FloatArray>();
+
+			for (int i = 0; i < tileLayers.length; i++) {
+				if (layers[i].zIndex != zIndices.get(group)) {
+					continue;
+				}
+
+				final TiledMapTileLayer layer = tileLayers[i];
+				layerTextures.clear();
+				layerVertices.clear();
+				for (int row = 0; row < layer.getHeight(); row++) {
+					for (int column = 0; column < layer.getWidth(); column++) {
+						final Cell cell = layer.getCell(column, row);
+						if (cell == null || cell.getTile() == null) {
+							continue;
+						}
+
+						final Texture texture = cell.getTile().getTextureRegion().getTexture();
+						int textureIndex = layerTextures.indexOf(texture, true);
+						if (textureIndex < 0) {
+							textureIndex = layerTextures.size;
+							layerTextures.add(texture);
+							layerVertices.add(new FloatArray());
+						}
+
+						computeVertices(cell, column * layer.getTileWidth(), row * layer.getTileHeight(), color,
+								vertices);
+						layerVertices.get(textureIndex).addAll(vertices);
+						spriteCount++;
+					}
+				}
+
+				// Append the layer, a run continues as long as the texture
+				// does not change
+				for (int j = 0; j < layerTextures.size; j++) {
+					if (runTextures.size > 0 && runTextures.peek() == layerTextures.get(j)) {
+						runVertices.peek().addAll(layerVertices.get(j));
+					} else {
+						runTextures.add(layerTextures.get(j));
+						runVertices.add(layerVertices.get(j));
+					}
+				}
+			}
+
+			groupTextures[group] = runTextures.toArray(Texture.class);
+			groupVertices[group] = new float[runVertices.size][];
+			for (int j = 0; j < runVertices.size; j++) {
+				groupVertices[group][j] = runVertices.get(j).toArray();
+			}
+		}
+
+		return new TileLayerCache(zIndices.toArray(), groupTextures, groupVertices, spriteCount);
+	}
+
+	/**
+	 * Computes the vertices of a cell the same way as the
+	 * {@link com.badlogic.gdx.maps.tiled.renderers.OrthogonalTiledMapRenderer}
+	 * does, including flipping and rotation.
+	 */
+	private static void computeVertices(Cell cell, float x, float y, float color, float[] vertices) {
+		final TiledMapTile tile = cell.getTile();
+		final TextureRegion region = tile.getTextureRegion();
+
+		final float x1 = x + tile.getOffsetX();
+		final float y1 = y + tile.getOffsetY();
+		final float x2 = x1 + region.getRegionWidth();
+		final float y2 = y1 + region.getRegionHeight();
+
+		final float u1 = region.getU();
+		final float v1 = region.getV2();
+		final float u2 = region.getU2();
+		final float v2 = region.getV();
+
+		vertices[X1] = x1;
+		vertices[Y1] = y1;
+		vertices[C1] = color;
+		vertices[U1] = u1;
+		vertices[V1] = v1;
+
+		vertices[X2] = x1;
+		vertices[Y2] = y2;
+		vertices[C2] = color;
+		vertices[U2] = u1;
+		vertices[V2] = v2;
+
+		vertices[X3] = x2;
+		vertices[Y3] = y2;
+		vertices[C3] = color;
+		vertices[U3] = u2;
+		vertices[V3] = v2;
+
+		vertices[X4] = x2;
+		vertices[Y4] = y1;
+		vertices[C4] = color;
+		vertices[U4] = u2;
+		vertices[V4] = v1;
+
+		if (cell.getFlipHorizontally()) {
+			swap(vertices, U1, U3);
+			swap(vertices, U2, U4);
+		}
+		if (cell.getFlipVertically()) {
+			swap(vertices, V1, V3);
+			swap(vertices, V2, V4);
+		}
+
+		switch (cell.getRotation()) {
+		case Cell.ROTATE_90:
+			rotate(vertices, V1, V2, V3, V4);
+			rotate(vertices, U1, U2, U3, U4);
+			break;
+		case Cell.ROTATE_180:
+			swap(vertices, U1, U3);
+			swap(vertices, U2, U4);
+			swap(vertices, V1, V3);
+			swap(vertices, V2, V4);
+			break;
+		case Cell.ROTATE_270:
+			rotate(vertices, V1, V4, V3, V2);
+			rotate(vertices, U1, U4, U3, U2);
+			break;
+		default:
+			break;
+		}
+	}
+
+	private static void swap(float[] vertices, int a, int b) {
+		final float temp = vertices[a];
+		vertices[a] = vertices[b];
+		vertices[b] = temp;
+	}
+
+	/**
+	 * Moves each value to the previous index: a = b, b = c, c = d, d = a.
+	 */
+	private static void rotate(float[] vertices, int a, int b, int c, int d) {
+		final float temp = vertices[a];
+		vertices[a] = vertices[b];
+		vertices[b] = vertices[c];
+		vertices[c] = vertices[d];
+		vertices[d] = temp;
+	}
+
+	/**
+	 * Shader of all caches, which tints the tiles by a color. A sprite cache
+	 * disposes the shader it draws with, so {@link #dispose()} does nothing and
+	 * the owner frees the shader by {@link #release()}.
+	 */
+	public static class SharedShader extends ShaderProgram {
+
+		private SharedShader() {
+			super(VERTEX_SHADER, FRAGMENT_SHADER);
+		}
+
+		@Override
+		public void dispose() {
+		}
+
+		public void release() {
+			super.dispose();
+		}
+	}
+
+	/**
+	 * Creates the shader for drawing the caches. Has to be called on the GL
+	 * thread, the caller releases the shader after disposing all caches.
+	 *
+	 * @return compiled shader
+	 */
+	public static SharedShader createShader() {
+		final SharedShader shader = new SharedShader();
+		if (!shader.isCompiled()) {
+			throw new GdxRuntimeException("Error compiling tile shader: " + shader.getLog());
+		}
+		return shader;
+	}
+
+	/**
+	 * Uploads the prepared vertices, one cache per group. Has to be called on
+	 * the GL thread. The sprites are quads of four vertices, so the cache has
+	 * to draw them indexed.
+	 *
+	 * @param shader
+	 *            shader of {@link #createShader()}, has to outlive the cache
+	 */
+	public void upload(SharedShader shader) {
+		this.shader = shader;
+		spriteCache = new SpriteCache(Math.max(1, spriteCount), shader, true);
+		for (int i = 0; i < groupTextures.length; i++) {
+			spriteCache.beginCache();
+			for (int j = 0; j < groupTextures[i].length; j++) {
+				final float[] vertices = groupVertices[i][j];
+				spriteCache.add(groupTextures[i][j], vertices, 0, vertices.length);
+			}
+			cacheIds[i] = spriteCache.endCache();
+		}
+
+		groupVertices = null;
+	}
+
+	/**
+	 * Draws a group at the given position. Flushes and restarts the batch, the
+	 * layer is drawn with the projection, transform and color of the batch.
+	 *
+	 * @param batch
+	 *            currently drawing batch
+	 * @param group
+	 *            index of the group
+	 * @param x
+	 *            x position in batch coordinates
+	 * @param y
+	 *            y position in batch coordinates
+	 * @param parentAlpha
+	 *            alpha of the parent actor, multiplied with the batch color
+	 */
+	public void draw(Batch batch, int group, float x, float y, float parentAlpha) {
+		if (groupTextures[group].length == 0) {
+			return;
+		}
+
+		batch.end();
+
+		// The sprite cache does not manage blending
+		Gdx.gl.glEnable(GL20.GL_BLEND);
+		Gdx.gl.glBlendFunc(batch.getBlendSrcFunc(), batch.getBlendDstFunc());
+
+		spriteCache.setProjectionMatrix(batch.getProjectionMatrix());
+		spriteCache.setTransformMatrix(tempTransform.set(batch.getTransformMatrix()).translate(x, y, 0));
+		spriteCache.begin();
+		final Color color = batch.getColor();
+		shader.setUniformf(TINT_UNIFORM, color.r, color.g, color.b, color.a * parentAlpha);
+		spriteCache.draw(cacheIds[group]);
+		spriteCache.end();
+		renderCalls += spriteCache.renderCalls;
+
+		Gdx.gl.glDisable(GL20.GL_BLEND);
+
+		batch.begin();
+	}
+
+	/**
+	 * Gets the bounds of all tiles of a group relative to the segment.
+	 *
+	 * @param group
+	 *            index of the group
+	 * @param rectangle
+	 *            result rectangle
+	 */
+	public void retrieveBounds(int group, Rectangle rectangle) {
+		final int offset = group * 4;
+		rectangle.set(groupBounds[offset + MIN_X], groupBounds[offset + MIN_Y],
+				groupBounds[offset + MAX_X] - groupBounds[offset + MIN_X],
+				groupBounds[offset + MAX_Y] - groupBounds[offset + MIN_Y]);
+	}
+
+	public int getGroupCount() {
+		return cacheIds.length;
+	}
+
+	/**
+	 * Z index of all layers of a group.
+	 *
+	 * @param group
+	 *            index of the group
+	 * @return z index
+	 */
+	public int getZIndex(int group) {
+		return zIndices[group];
+	}
+
+	/**
+	 * Size of the uploaded vertices.
+	 *
+	 * @return size in bytes
+	 */
+	public int getVertexBytes() {
+		return spriteCount * SPRITE_SIZE * 4;
+	}
+
+	/**
+	 * Number of render calls of all tile layer caches since the last reset.
+	 *
+	 * @return render call count
+	 */
+	public static int getRenderCalls() {
+		return renderCalls;
+	}
+
+	public static void resetRenderCalls() {
+		renderCalls = 0;
+	}
+
+	@Override
+	public void dispose() {
+		if (spriteCache != null) {
+			spriteCache.dispose();
+			spriteCache = null;
+		}
+	}
+}
@@ -1,46 +1,53 @@
 package com.peppercarrot.runninggame.world;
 
-import com.badlogic.gdx.graphics.Camera;
 import com.badlogic.gdx.graphics.g2d.Batch;
-import com.badlogic.gdx.maps.tiled.TiledMapTileLayer;
-import com.badlogic.gdx.maps.tiled.renderers.BatchTiledMapRenderer;
-import com.badlogic.gdx.math.Matrix4;
-import com.badlogic.gdx.math.Vector3;
+import com.badlogic.gdx.math.Rectangle;
 import com.badlogic.gdx.scenes.scene2d.Actor;
-import com.badlogic.gdx.scenes.scene2d.Group;
+import com.badlogic.gdx.utils.Pool.Poolable;
 
 /**
- * Renders a tiled layer.
+ * Renders a group of tiled layers, which has been baked into a
+ * {@link TileLayerCache}. The bounds of the actor are the bounds of the tiles,
+ * so the actor can be culled by its group.
  * 
  * @author momsen
  *
  */
-public class TmxLayerActor extends Group {
-
-	private final class DrawableActor extends Actor {
-		final Vector3 tempPosition = new Vector3();
-
-		@Override
-		public void draw(Batch batch, float parentAlpha) {
-			final Matrix4 computeTransform = computeTransform();
-			computeTransform.getTranslation(tempPosition);
-			TmxLayerActor.this.renderer.getViewBounds().set(-tempPosition.x, -tempPosition.y,
-					TmxLayerActor.this.camera.viewportWidth * computeTransform.getScaleX(),
-					TmxLayerActor.this.camera.viewportHeight * computeTransform.getScaleY());
-			TmxLayerActor.this.renderer.renderTileLayer(TmxLayerActor.this.layer);
-		}
+public class TmxLayerActor extends Actor implements Poolable {
+
+	private TileLayerCache cache;
+
+	private int group;
+
+	/**
+	 * Bounds of the tiles relative to the segment
+	 */
+	private final Rectangle bounds = new Rectangle();
+
+	/**
+	 * Sets the rendered layers.
+	 * 
+	 * @param cache
+	 *            baked tile layers, shared between all instances of a segment
+	 * @param group
+	 *            index of the layer group in the cache
+	 */
+	public void setLayer(TileLayerCache cache, int group) {
+		this.cache = cache;
+		this.group = group;
+		cache.retrieveBounds(group, bounds);
+		setBounds(bounds.x, bounds.y, bounds.width, bounds.height);
 	}
 
-	private final TiledMapTileLayer layer;
-
-	private final BatchTiledMapRenderer renderer;
-
-	private final Camera camera;
+	@Override
+	public void draw(Batch batch, float parentAlpha) {
+		// The cache is positioned by the segment origin, not by the bounds
+		cache.draw(batch, group, getX() - bounds.x, getY() - bounds.y, parentAlpha);
+	}
 
-	public TmxLayerActor(TiledMapTileLayer layer, BatchTiledMapRenderer renderer, Camera camera) {
-		this.layer = layer;
-		this.renderer = renderer;
-		this.camera = camera;
-		addActor(new DrawableActor());
+	@Override
+	public void reset() {
+		cache = null;
+		setBounds(0, 0, 0, 0);
 	}
 }
@@ -0,0 +1,102 @@
+package com.peppercarrot.runninggame.world;
+
+import com.badlogic.gdx.graphics.Camera;
+import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.scenes.scene2d.Actor;
+import com.badlogic.gdx.scenes.scene2d.Group;
+import com.badlogic.gdx.utils.SnapshotArray;
+
+/**
+ * Restricts drawing of the world to the area seen by the camera. The area is
+ * handed to the groups as {@link Group#setCullingArea(Rectangle)}, so scene2d
+ * skips each child whose bounds are outside of it. The culling area of a group
+ * only applies to its direct children, so only groups which contain the
+ * actual content are culled, not the layers containing them.
+ *
+ * @author momsen
+ *
+ */
+public class ViewportCulling {
+
+	private final Rectangle area = new Rectangle();
+
+	private int drawnActors;
+
+	private int culledActors;
+
+	/**
+	 * Sets the visible area of the camera in stage coordinates. Has to be
+	 * called after the camera has been moved for the frame.
+	 *
+	 * @param camera
+	 */
+	public void setArea(Camera camera) {
+		area.set(camera.position.x - camera.viewportWidth / 2, camera.position.y - camera.viewportHeight / 2,
+				camera.viewportWidth, camera.viewportHeight);
+	}
+
+	/**
+	 * Sets the culling area of a group for the next draw and counts its
+	 * drawn and culled children. The group and its parents must not be
+	 * scaled or rotated, they are only offset.
+	 *
+	 * @param group
+	 *            group to cull
+	 * @param localArea
+	 *            rectangle owned by the group, which receives the area in the
+	 *            coordinates of the group
+	 */
+	public void cull(Group group, Rectangle localArea) {
+		float offsetX = 0;
+		float offsetY = 0;
+		for (Group parent = group; parent != null; parent = parent.getParent()) {
+			offsetX += parent.getX();
+			offsetY += parent.getY();
+		}
+		localArea.set(area.x - offsetX, area.y - offsetY, area.width, area.height);
+		group.setCullingArea(localArea);
+
+		final float right = localArea.x + localArea.width;
+		final float top = localArea.y + localArea.height;
+		final SnapshotArray<Actor> children = group.getChildren();
+		for (int i = 0; i < children.size; i++) {
+			final Actor child = children.get(i);
+			if (!child.isVisible()) {
+				continue;
+			}
+
+			// Same test as in Group#drawChildren
+			if (child.getX() <= right && child.getY() <= top && child.getX() + child.getWidth() >= localArea.x
+					&& child.getY() + child.getHeight() >= localArea.y) {
+				drawnActors++;
+			} else {
+				culledActors++;
+			}
+		}
+	}
+
+	/**
+	 * Number of children of the culled groups, which have been drawn since
+	 * the last {@link #resetCounters()}.
+	 *
+	 * @return actor count
+	 */
+	public int getDrawnActors() {
+		return drawnActors;
+	}
+
+	/**
+	 * Number of children of the culled groups, which have been skipped since
+	 * the last {@link #resetCounters()}.
+	 *
+	 * @return actor count
+	 */
+	public int getCulledActors() {
+		return culledActors;
+	}
+
+	public void resetCounters() {
+		drawnActors = 0;
+		culledActors = 0;
+	}
+}
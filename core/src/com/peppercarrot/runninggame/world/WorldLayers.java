@@ -0,0 +1,207 @@
+package com.peppercarrot.runninggame.world;
+
+import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.scenes.scene2d.Actor;
+import com.badlogic.gdx.scenes.scene2d.Group;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.FloatArray;
+import com.badlogic.gdx.utils.SnapshotArray;
+import com.peppercarrot.runninggame.utils.Constants;
+
+/**
+ * Fixed render layers of the world, drawn from back to front: tiles below the
+ * runner, entities below the runner (with the tiles between them), the runner
+ * with its pet, everything above the runner and the effects of the abilities.
+ * Segments append their content to the layers, so inserting a segment never
+ * reorders existing actors.
+ *
+ * While drawing between two simulation steps, the tile and entity layers are
+ * offset by the remaining scroll and the runner layer by the remaining
+ * vertical movement of the runner, see
+ * {@link #setInterpolationOffset(float, float)}. The effects do not scroll
+ * with the world, each effect is drawn between its positions before and
+ * after the last step instead, see {@link #interpolateEffects(float)}.
+ *
+ * @author momsen
+ *
+ */
+public class WorldLayers {
+
+	private final Group backgroundTiles = new Group();
+
+	private final Group belowRunner = new Group();
+
+	private final Group runner = new Group();
+
+	private final Group aboveRunner = new Group();
+
+	private final Group effects = new Group();
+
+	private final Rectangle effectsCullingArea = new Rectangle();
+
+	/**
+	 * Effects at once, for which the arrays are sized up front, so that
+	 * adding effects does not allocate. The arrays grow beyond.
+	 */
+	private static final int EFFECT_CAPACITY = 64;
+
+	/**
+	 * Effects at the beginning of the last simulation step
+	 */
+	private final Array<Actor> steppedEffects = new Array<Actor>(EFFECT_CAPACITY);
+
+	/**
+	 * Position of each stepped effect before and after the last step, x and
+	 * y interleaved
+	 */
+	private final FloatArray steppedEffectPositions = new FloatArray(EFFECT_CAPACITY * 4);
+
+	/**
+	 * Creates the layers and appends them to the given parent.
+	 *
+	 * @param parent
+	 *            group containing the world
+	 */
+	public WorldLayers(Group parent) {
+		addLayer(parent, backgroundTiles);
+		addLayer(parent, belowRunner);
+		addLayer(parent, runner);
+		addLayer(parent, aboveRunner);
+		addLayer(parent, effects);
+		effects.getChildren().ensureCapacity(EFFECT_CAPACITY);
+	}
+
+	private static void addLayer(Group parent, Group layer) {
+		// Children are drawn with the group offset, no batch flush needed
+		layer.setTransform(false);
+		parent.addActor(layer);
+	}
+
+	/**
+	 * Offsets the layers for rendering between two simulation steps.
+	 * 
+	 * @param scrollX
+	 *            horizontal offset of the scrolling layers
+	 * @param runnerY
+	 *            vertical offset of the runner layer
+	 */
+	public void setInterpolationOffset(float scrollX, float runnerY) {
+		backgroundTiles.setX(scrollX);
+		belowRunner.setX(scrollX);
+		aboveRunner.setX(scrollX);
+		runner.setY(runnerY);
+	}
+
+	/**
+	 * Records the positions of the effects before a simulation step.
+	 */
+	public void beginStep() {
+		final SnapshotArray<Actor> children = effects.getChildren();
+		steppedEffects.clear();
+		steppedEffectPositions.clear();
+		for (int i = 0; i < children.size; i++) {
+			final Actor effect = children.get(i);
+			steppedEffects.add(effect);
+			steppedEffectPositions.add(effect.getX());
+			steppedEffectPositions.add(effect.getY());
+			steppedEffectPositions.add(0);
+			steppedEffectPositions.add(0);
+		}
+	}
+
+	/**
+	 * Moves the effects between their positions before and after the last
+	 * simulation step for drawing. Effects added during the step are drawn at
+	 * their position. Has to be undone by {@link #restoreEffects()}.
+	 * 
+	 * @param alpha
+	 *            factor between 0 (previous step) and 1 (last step)
+	 */
+	public void interpolateEffects(float alpha) {
+		final float[] positions = steppedEffectPositions.items;
+		for (int i = 0; i < steppedEffects.size; i++) {
+			final Actor effect = steppedEffects.get(i);
+			if (effect.getParent() == effects) {
+				final int base = i * 4;
+				positions[base + 2] = effect.getX();
+				positions[base + 3] = effect.getY();
+				effect.setPosition(positions[base] + (positions[base + 2] - positions[base]) * alpha,
+						positions[base + 1] + (positions[base + 3] - positions[base + 1]) * alpha);
+			}
+		}
+	}
+
+	/**
+	 * Moves the effects back to their positions after the last step.
+	 */
+	public void restoreEffects() {
+		final float[] positions = steppedEffectPositions.items;
+		for (int i = 0; i < steppedEffects.size; i++) {
+			final Actor effect = steppedEffects.get(i);
+			if (effect.getParent() == effects) {
+				effect.setPosition(positions[i * 4 + 2], positions[i * 4 + 3]);
+			}
+		}
+	}
+
+	/**
+	 * Culls the effects for the next draw. The segment layers only contain
+	 * the groups of the segments, which are culled by the segments
+	 * themselves. The runner is always visible.
+	 * 
+	 * @param culling
+	 */
+	public void cull(ViewportCulling culling) {
+		culling.cull(effects, effectsCullingArea);
+	}
+
+	/**
+	 * Tiles with a z index lower than {@link Constants#RUNNER_ZINDEX}, which
+	 * are drawn before all entities of their segment
+	 *
+	 * @return layer
+	 */
+	public Group getBackgroundTiles() {
+		return backgroundTiles;
+	}
+
+	/**
+	 * Enemies and potions with a z index lower than
+	 * {@link Constants#RUNNER_ZINDEX}, and the tiles drawn between or after
+	 * them
+	 *
+	 * @return layer
+	 */
+	public Group getBelowRunner() {
+		return belowRunner;
+	}
+
+	/**
+	 * Runner and pet
+	 *
+	 * @return layer
+	 */
+	public Group getRunner() {
+		return runner;
+	}
+
+	/**
+	 * Tiles, enemies and potions with a z index greater or equal to
+	 * {@link Constants#RUNNER_ZINDEX}
+	 *
+	 * @return layer
+	 */
+	public Group getAboveRunner() {
+		return aboveRunner;
+	}
+
+	/**
+	 * Actors of the abilities, which are not attached to the runner. Must not
+	 * contain groups without bounds, they would be culled.
+	 *
+	 * @return layer
+	 */
+	public Group getEffects() {
+		return effects;
+	}
+}
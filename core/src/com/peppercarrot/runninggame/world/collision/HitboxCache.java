@@ -0,0 +1,70 @@
+package com.peppercarrot.runninggame.world.collision;
+
+import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.scenes.scene2d.Actor;
+import com.peppercarrot.runninggame.utils.CollisionUtil;
+
+/**
+ * Hitbox of an actor in stage coordinates, computed at most once per
+ * simulation step. Computing the hitbox walks the parent chain of the actor,
+ * while the same hitbox is requested by the broadphase, the abilities and the
+ * debug renderer. The owner has to call {@link #invalidate()} whenever it
+ * moves or changes its size, parents only move between steps.
+ *
+ * @author momsen
+ *
+ */
+public class HitboxCache {
+
+	private static int step;
+
+	private static int recomputations;
+
+	private final Rectangle hitbox = new Rectangle();
+
+	private int validStep = -1;
+
+	/**
+	 * Copies the hitbox of the actor into the given rectangle, see
+	 * {@link CollisionUtil#retrieveHitbox(Actor, Rectangle)}.
+	 *
+	 * @param actor
+	 *            owner of this cache
+	 * @param rectangle
+	 *            result rectangle
+	 */
+	public void retrieve(Actor actor, Rectangle rectangle) {
+		if (validStep != step) {
+			CollisionUtil.retrieveHitbox(actor, hitbox);
+			validStep = step;
+			recomputations++;
+		}
+		rectangle.set(hitbox);
+	}
+
+	public void invalidate() {
+		validStep = -1;
+	}
+
+	/**
+	 * Invalidates all hitboxes, has to be called at the beginning of each
+	 * simulation step.
+	 */
+	public static void nextStep() {
+		step = step == Integer.MAX_VALUE ? 0 : step + 1;
+	}
+
+	/**
+	 * Number of computed hitboxes since the last
+	 * {@link #resetRecomputations()}.
+	 *
+	 * @return recomputation count
+	 */
+	public static int getRecomputations() {
+		return recomputations;
+	}
+
+	public static void resetRecomputations() {
+		recomputations = 0;
+	}
+}
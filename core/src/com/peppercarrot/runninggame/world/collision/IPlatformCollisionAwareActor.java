@@ -6,6 +6,12 @@ public interface IPlatformCollisionAwareActor {
 	float getPlatformCollisionX();
 
 	float getPlatformCollisionY();
+
+	/**
+	 * Bottom of the actor before the last simulation step, used to sweep the
+	 * actor against the platforms.
+	 */
+	float getPlatformCollisionPreviousY();
 	
 	float getPlatformCollisionWidth();
 
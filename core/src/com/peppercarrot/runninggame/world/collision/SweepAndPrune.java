@@ -0,0 +1,248 @@
+package com.peppercarrot.runninggame.world.collision;
+
+import java.util.Arrays;
+
+import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.IntArray;
+import com.peppercarrot.runninggame.entities.Enemy;
+import com.peppercarrot.runninggame.entities.Potion;
+
+/**
+ * Broadphase for all hitbox collisions of a simulation step. The hitboxes of
+ * the collision aware actors, the enemies and the potions are sorted by their
+ * left border and swept from left to right. Only boxes whose horizontal
+ * ranges overlap are compared, so the cost grows with the number of overlaps
+ * instead of actors times entities. Enemies and potions are never compared
+ * with each other.
+ *
+ * The candidate pairs are dispatched to
+ * {@link IEnemyCollisionAwareActor#onHitEnemy(Enemy)} and
+ * {@link IPotionCollisionAwareActor#onHitPotion(Potion)}. As before, an actor
+ * stops receiving enemies (or potions) of a step as soon as one hit returns
+ * <code>true</code>.
+ *
+ * @author momsen
+ *
+ */
+public class SweepAndPrune {
+
+	private static final int ENEMY_AWARE = 1;
+
+	private static final int POTION_AWARE = 2;
+
+	private static final int ENEMY = 4;
+
+	private static final int POTION = 8;
+
+	private static final int MIN_X = 0, MIN_Y = 1, MAX_X = 2, MAX_Y = 3;
+
+	private final Array<Object> owners = new Array<Object>();
+
+	private int actorCount;
+
+	/**
+	 * Type flags of each box, an actor can be aware of enemies and potions
+	 */
+	private int[] types = new int[16];
+
+	/**
+	 * Flags of the hits an actor has accepted during this step
+	 */
+	private int[] accepted = new int[16];
+
+	/**
+	 * Four values per box, see {@link #MIN_X} etc.
+	 */
+	private float[] bounds = new float[16 * 4];
+
+	/**
+	 * Sortable left border in the upper and box index in the lower half
+	 */
+	private long[] order = new long[16];
+
+	private final IntArray active = new IntArray();
+
+	/**
+	 * Actor box and target box of each candidate pair
+	 */
+	private final IntArray pairs = new IntArray();
+
+	private final Rectangle tempRectangle = new Rectangle();
+
+	/**
+	 * Removes all boxes. Actors have to be added before the enemies and
+	 * potions.
+	 */
+	public void clear() {
+		owners.clear();
+		actorCount = 0;
+		pairs.clear();
+	}
+
+	public void addEnemyAwareActor(IEnemyCollisionAwareActor actor) {
+		addActor(actor, ENEMY_AWARE);
+	}
+
+	public void addPotionAwareActor(IPotionCollisionAwareActor actor) {
+		addActor(actor, POTION_AWARE);
+	}
+
+	private void addActor(IHitBoxActor actor, int type) {
+		// Actors can be aware of both, they only get one box
+		for (int i = 0; i < actorCount; i++) {
+			if (owners.get(i) == actor) {
+				types[i] |= type;
+				return;
+			}
+		}
+
+		add(actor, type);
+		actorCount++;
+	}
+
+	public void addEnemy(Enemy enemy) {
+		add(enemy, ENEMY);
+	}
+
+	/**
+	 * Adds a potion, collected (invisible) potions are ignored.
+	 *
+	 * @param potion
+	 */
+	public void addPotion(Potion potion) {
+		if (potion.isVisible()) {
+			add(potion, POTION);
+		}
+	}
+
+	private void add(IHitBoxActor owner, int type) {
+		final int index = owners.size;
+		if (index == types.length) {
+			types = Arrays.copyOf(types, index * 2);
+			accepted = Arrays.copyOf(accepted, index * 2);
+			bounds = Arrays.copyOf(bounds, index * 2 * 4);
+			order = Arrays.copyOf(order, index * 2);
+		}
+
+		owner.retrieveHitbox(tempRectangle);
+		owners.add(owner);
+		types[index] = type;
+		accepted[index] = 0;
+		bounds[index * 4 + MIN_X] = tempRectangle.x;
+		bounds[index * 4 + MIN_Y] = tempRectangle.y;
+		bounds[index * 4 + MAX_X] = tempRectangle.x + tempRectangle.width;
+		bounds[index * 4 + MAX_Y] = tempRectangle.y + tempRectangle.height;
+	}
+
+	/**
+	 * Sweeps all boxes and dispatches the hits.
+	 */
+	public void process() {
+		sweep();
+		dispatch();
+	}
+
+	private void sweep() {
+		final int count = owners.size;
+		for (int i = 0; i < count; i++) {
+			order[i] = (long) sortableBits(bounds[i * 4 + MIN_X]) << 32 | i;
+		}
+		Arrays.sort(order, 0, count);
+
+		pairs.clear();
+		active.clear();
+		for (int i = 0; i < count; i++) {
+			final int box = (int) order[i];
+			final float minX = bounds[box * 4 + MIN_X];
+
+			// Drop all boxes which end left of this one
+			int kept = 0;
+			for (int j = 0; j < active.size; j++) {
+				final int other = active.get(j);
+				if (bounds[other * 4 + MAX_X] > minX) {
+					active.set(kept++, other);
+					addPair(box, other);
+				}
+			}
+			active.size = kept;
+			active.add(box);
+		}
+	}
+
+	private void addPair(int a, int b) {
+		final int typeA = types[a];
+		final int typeB = types[b];
+		if (!canHit(typeA, typeB) && !canHit(typeB, typeA)) {
+			return;
+		}
+
+		// Same test as Rectangle.overlaps
+		if (bounds[a * 4 + MIN_X] < bounds[b * 4 + MAX_X] && bounds[a * 4 + MAX_X] > bounds[b * 4 + MIN_X]
+				&& bounds[a * 4 + MIN_Y] < bounds[b * 4 + MAX_Y] && bounds[a * 4 + MAX_Y] > bounds[b * 4 + MIN_Y]) {
+			if (canHit(typeA, typeB)) {
+				pairs.add(a);
+				pairs.add(b);
+			} else {
+				pairs.add(b);
+				pairs.add(a);
+			}
+		}
+	}
+
+	private static boolean canHit(int actorType, int targetType) {
+		return (actorType & ENEMY_AWARE) != 0 && (targetType & ENEMY) != 0
+				|| (actorType & POTION_AWARE) != 0 && (targetType & POTION) != 0;
+	}
+
+	private void dispatch() {
+		for (int i = 0; i < pairs.size; i += 2) {
+			final int actor = pairs.get(i);
+			final int target = pairs.get(i + 1);
+			final int type = types[target];
+			if ((accepted[actor] & type) != 0) {
+				continue;
+			}
+
+			final boolean hit;
+			if (type == ENEMY) {
+				hit = ((IEnemyCollisionAwareActor) owners.get(actor)).onHitEnemy((Enemy) owners.get(target));
+			} else {
+				// Another actor might have collected the potion already
+				final Potion potion = (Potion) owners.get(target);
+				hit = potion.isVisible() && ((IPotionCollisionAwareActor) owners.get(actor)).onHitPotion(potion);
+			}
+
+			if (hit) {
+				accepted[actor] |= type;
+			}
+		}
+	}
+
+	/**
+	 * Maps a float to an int with the same order.
+	 */
+	private static int sortableBits(float value) {
+		final int bits = Float.floatToIntBits(value);
+		return bits ^ (bits >> 31 & 0x7FFFFFFF);
+	}
+
+	/**
+	 * Number of boxes of the last step.
+	 *
+	 * @return box count
+	 */
+	public int getBoxCount() {
+		return owners.size;
+	}
+
+	/**
+	 * Number of overlapping pairs of the last step, which have been
+	 * dispatched.
+	 *
+	 * @return pair count
+	 */
+	public int getPairCount() {
+		return pairs.size / 2;
+	}
+}
@@ -0,0 +1,195 @@
+package com.peppercarrot.runninggame.desktop;
+
+import java.lang.management.ManagementFactory;
+
+import com.badlogic.gdx.ApplicationAdapter;
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.backends.headless.HeadlessApplication;
+import com.badlogic.gdx.backends.headless.HeadlessApplicationConfiguration;
+import com.peppercarrot.runninggame.PaCGame;
+import com.peppercarrot.runninggame.entities.Ability;
+import com.peppercarrot.runninggame.entities.Pepper;
+import com.peppercarrot.runninggame.entities.Runner;
+import com.peppercarrot.runninggame.stages.WorldStage;
+import com.peppercarrot.runninggame.stages.WorldUiStage;
+import com.peppercarrot.runninggame.utils.Constants;
+import com.peppercarrot.runninggame.utils.SimulationClock;
+
+/**
+ * Plays a scripted minute of the game headless and fails, if a frame
+ * allocates on the heap after the warm-up. A frame runs the simulation steps
+ * and draws the world and the ui, like the world screen. The runner jumps,
+ * double jumps and activates each ability in turn, with its energy refilled.
+ * Allocations are measured on the game thread, so the level loading on the
+ * asset thread is not counted. GL calls go to {@link HeadlessGL20}.
+ *
+ * Has to run interpreted (<code>-Xint</code>): compiled code hides
+ * allocations by escape analysis, which the Android runtime does not do, and
+ * compiling and deoptimizing in the background allocates at random frames.
+ *
+ * Usage: <code>AllocationTest</code>, run in the assets directory. Exits with
+ * 1, if a frame allocated or the game crashed.
+ *
+ * @author momsen
+ *
+ */
+public class AllocationTest extends ApplicationAdapter {
+
+	private static final float FRAME = 1 / 60f;
+
+	private static final int FRAMES = 60 * 60;
+
+	/**
+	 * Frames until all segment templates are cached and all pools are filled
+	 */
+	private static final int WARM_UP_FRAMES = 20 * 60;
+
+	private static final int JUMP_INTERVAL = 45;
+
+	private static final int DOUBLE_JUMP_DELAY = 12;
+
+	private static final int ABILITY_INTERVAL = 180;
+
+	/**
+	 * Simulation steps per frame at most, like the world screen
+	 */
+	private static final int MAX_STEPS_PER_FRAME = 8;
+
+	private final com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory
+			.getThreadMXBean();
+
+	private final SimulationClock clock = new SimulationClock(MAX_STEPS_PER_FRAME);
+
+	private Runner runner;
+
+	private WorldStage stage;
+
+	private WorldUiStage ui;
+
+	private long threadId;
+
+	/**
+	 * Bytes allocated by measuring itself
+	 */
+	private long measurementOverhead;
+
+	private int frame;
+
+	private int allocatingFrames;
+
+	private long allocatedBytes;
+
+	private long maxAllocatedBytes;
+
+	private int firstAllocatingFrame = -1;
+
+	public static void main(String[] args) {
+		// The game loop runs in its own thread, a crash has to fail the test
+		Thread.setDefaultUncaughtExceptionHandler(new Thread.UncaughtExceptionHandler() {
+			@Override
+			public void uncaughtException(Thread thread, Throwable throwable) {
+				throwable.printStackTrace();
+				System.exit(1);
+			}
+		});
+		Gdx.gl = Gdx.gl20 = new HeadlessGL20();
+		final HeadlessApplicationConfiguration config = new HeadlessApplicationConfiguration();
+		// Frames are timed by the script, not by the clock
+		config.renderInterval = 0;
+		new HeadlessApplication(new AllocationTest(), config);
+	}
+
+	@Override
+	public void create() {
+		PaCGame.getInstance().create();
+
+		runner = new Pepper("pepper");
+		stage = new WorldStage(Constants.VIRTUAL_WIDTH, Constants.VIRTUAL_HEIGHT, runner);
+		ui = new WorldUiStage();
+		ui.setAbilitySlot1(runner.ability1);
+		ui.setAbilitySlot2(runner.ability2);
+		ui.setAbilitySlot3(runner.ability3);
+		ui.setAbilitySlot4(runner.ability4);
+
+		threadId = Thread.currentThread().getId();
+		final long start = threads.getThreadAllocatedBytes(threadId);
+		measurementOverhead = threads.getThreadAllocatedBytes(threadId) - start;
+	}
+
+	@Override
+	public void render() {
+		final long start = threads.getThreadAllocatedBytes(threadId);
+		play();
+		final long allocated = threads.getThreadAllocatedBytes(threadId) - start - measurementOverhead;
+
+		if (frame >= WARM_UP_FRAMES && allocated > 0) {
+			allocatingFrames++;
+			allocatedBytes += allocated;
+			maxAllocatedBytes = Math.max(maxAllocatedBytes, allocated);
+			if (firstAllocatingFrame < 0) {
+				firstAllocatingFrame = frame;
+			}
+		}
+
+		frame++;
+		if (frame == FRAMES) {
+			finish();
+		}
+	}
+
+	/**
+	 * Plays one frame of the script.
+	 */
+	private void play() {
+		if (frame == 0) {
+			ui.hideHint();
+			stage.start();
+		}
+		if (frame % JUMP_INTERVAL == 0) {
+			runner.jump();
+		}
+		if (frame % (JUMP_INTERVAL * 2) == DOUBLE_JUMP_DELAY) {
+			runner.jump();
+		}
+		if (frame % ABILITY_INTERVAL == ABILITY_INTERVAL / 2) {
+			final Ability ability = getAbility(frame / ABILITY_INTERVAL % 4);
+			ability.increaseEnergy(ability.getMaxEnergy());
+			ability.activate(stage);
+		}
+
+		final int steps = clock.advance(FRAME);
+		for (int i = 0; i < steps; i++) {
+			stage.step(true);
+		}
+		stage.setInterpolationAlpha(clock.getAlpha());
+		ui.act(FRAME);
+		stage.draw();
+		ui.draw();
+	}
+
+	private Ability getAbility(int slot) {
+		switch (slot) {
+		case 0:
+			return runner.ability1;
+		case 1:
+			return runner.ability2;
+		case 2:
+			return runner.ability3;
+		default:
+			return runner.ability4;
+		}
+	}
+
+	private void finish() {
+		System.out.println((FRAMES - WARM_UP_FRAMES) + " frames after warm-up, " + allocatingFrames
+				+ " allocating frames, " + allocatedBytes + " bytes, max " + maxAllocatedBytes + " bytes per frame");
+		if (allocatingFrames > 0) {
+			System.out.println("First allocating frame " + firstAllocatingFrame);
+		}
+
+		stage.dispose();
+		ui.dispose();
+		PaCGame.getInstance().dispose();
+		System.exit(allocatingFrames > 0 ? 1 : 0);
+	}
+}
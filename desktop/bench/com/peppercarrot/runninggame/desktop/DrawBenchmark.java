@@ -0,0 +1,155 @@
+package com.peppercarrot.runninggame.desktop;
+
+import java.nio.Buffer;
+import java.util.Arrays;
+
+import com.badlogic.gdx.ApplicationAdapter;
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.backends.headless.HeadlessApplication;
+import com.badlogic.gdx.backends.headless.HeadlessApplicationConfiguration;
+import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+import com.peppercarrot.runninggame.PaCGame;
+import com.peppercarrot.runninggame.entities.Pepper;
+import com.peppercarrot.runninggame.entities.Runner;
+import com.peppercarrot.runninggame.stages.WorldStage;
+import com.peppercarrot.runninggame.utils.Constants;
+import com.peppercarrot.runninggame.utils.SimulationClock;
+
+/**
+ * Plays a scripted minute of the game headless, in which the runner only
+ * jumps, and measures drawing the world stage. Prints the average and the
+ * median CPU time of a draw, the render calls of the sprite batch and the
+ * render calls of the tile caches per frame. GL calls go to
+ * {@link HeadlessGL20}, so the time does not contain any work of the driver.
+ *
+ * Usage: <code>DrawBenchmark</code>, run in the assets directory.
+ *
+ * @author momsen
+ *
+ */
+public class DrawBenchmark extends ApplicationAdapter {
+
+	/**
+	 * Counts the draw calls, which reach the GL.
+	 */
+	private static class CountingGL20 extends HeadlessGL20 {
+
+		int drawCalls;
+
+		@Override
+		public void glDrawArrays(int mode, int first, int count) {
+			drawCalls++;
+		}
+
+		@Override
+		public void glDrawElements(int mode, int count, int type, Buffer indices) {
+			drawCalls++;
+		}
+
+		@Override
+		public void glDrawElements(int mode, int count, int type, int indices) {
+			drawCalls++;
+		}
+	}
+
+	private static final float FRAME = 1 / 60f;
+
+	private static final int FRAMES = 60 * 60;
+
+	/**
+	 * Frames until all segment templates are cached and the code is compiled
+	 */
+	private static final int WARM_UP_FRAMES = 20 * 60;
+
+	private static final int JUMP_INTERVAL = 45;
+
+	private static final int DOUBLE_JUMP_DELAY = 12;
+
+	private static final int MAX_STEPS_PER_FRAME = 8;
+
+	private static final CountingGL20 gl = new CountingGL20();
+
+	private final SimulationClock clock = new SimulationClock(MAX_STEPS_PER_FRAME);
+
+	private final long[] drawNanos = new long[FRAMES];
+
+	private Runner runner;
+
+	private WorldStage stage;
+
+	private SpriteBatch batch;
+
+	private int frame;
+
+	private long batchCalls;
+
+	private long drawCalls;
+
+	public static void main(String[] args) {
+		Gdx.gl = Gdx.gl20 = gl;
+		final HeadlessApplicationConfiguration config = new HeadlessApplicationConfiguration();
+		config.renderInterval = 0;
+		new HeadlessApplication(new DrawBenchmark(), config);
+	}
+
+	@Override
+	public void create() {
+		PaCGame.getInstance().create();
+
+		runner = new Pepper("pepper");
+		stage = new WorldStage(Constants.VIRTUAL_WIDTH, Constants.VIRTUAL_HEIGHT, runner);
+		batch = (SpriteBatch) stage.getBatch();
+	}
+
+	@Override
+	public void render() {
+		if (frame == 0) {
+			stage.start();
+		}
+		if (frame % JUMP_INTERVAL == 0) {
+			runner.jump();
+		}
+		if (frame % (JUMP_INTERVAL * 2) == DOUBLE_JUMP_DELAY) {
+			runner.jump();
+		}
+
+		final int steps = clock.advance(FRAME);
+		for (int i = 0; i < steps; i++) {
+			stage.step(true);
+		}
+		stage.setInterpolationAlpha(clock.getAlpha());
+
+		final int startBatchCalls = batch.totalRenderCalls;
+		final int startDrawCalls = gl.drawCalls;
+		final long start = System.nanoTime();
+		stage.draw();
+		final long nanos = System.nanoTime() - start;
+
+		if (frame >= WARM_UP_FRAMES) {
+			drawNanos[frame - WARM_UP_FRAMES] = nanos;
+			batchCalls += batch.totalRenderCalls - startBatchCalls;
+			drawCalls += gl.drawCalls - startDrawCalls;
+		}
+
+		frame++;
+		if (frame == WARM_UP_FRAMES + FRAMES) {
+			finish();
+		}
+	}
+
+	private void finish() {
+		long totalNanos = 0;
+		for (final long nanos : drawNanos) {
+			totalNanos += nanos;
+		}
+		Arrays.sort(drawNanos);
+
+		System.out.println("frames\tavg us/draw\tmedian us/draw\tbatch calls\ttile cache calls");
+		System.out.println(FRAMES + "\t" + totalNanos / FRAMES / 1000f + "\t\t" + drawNanos[FRAMES / 2] / 1000f + "\t\t"
+				+ (float) batchCalls / FRAMES + "\t\t" + (float) (drawCalls - batchCalls) / FRAMES);
+
+		stage.dispose();
+		PaCGame.getInstance().dispose();
+		System.exit(0);
+	}
+}
@@ -0,0 +1,127 @@
+package com.peppercarrot.runninggame.desktop;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.scenes.scene2d.Group;
+import com.badlogic.gdx.scenes.scene2d.ui.Image;
+import com.peppercarrot.runninggame.utils.CollisionUtil;
+import com.peppercarrot.runninggame.world.EntityStore;
+
+/**
+ * Compares a full collision scan over the enemies of a segment stored as
+ * actors in a list with the same scan over an {@link EntityStore}. The list
+ * variant does what the enemies did before the store: computing each hitbox
+ * from the actor and its parents. {@link Image} actors stand in for the
+ * enemies, which cannot be created without the texture atlas.
+ *
+ * Usage: <code>EntityStoreBenchmark</code>
+ *
+ * @author momsen
+ *
+ */
+public class EntityStoreBenchmark {
+
+	private static final float SEGMENT_WIDTH = 30 * 95;
+
+	private static final float SEGMENT_HEIGHT = 7 * 95;
+
+	private static final float ENTITY_SIZE = 90;
+
+	private static final int ENTITY_COUNT = 10000;
+
+	private static final int SCANS = 2000;
+
+	/**
+	 * Number of overlaps found by the last run
+	 */
+	private static long hits;
+
+	public static void main(String[] args) {
+		final Random random = new Random(42);
+
+		// The segment group is moved like while scrolling, so the actors need
+		// their parent to compute the hitbox
+		final Group segment = new Group();
+		segment.setPosition(200, 207);
+		final List<Image> actors = new ArrayList<Image>();
+		final EntityStore store = new EntityStore();
+		store.setOrigin(segment.getX(), segment.getY());
+
+		for (int i = 0; i < ENTITY_COUNT; i++) {
+			final float x = random.nextFloat() * SEGMENT_WIDTH;
+			final float y = random.nextFloat() * SEGMENT_HEIGHT;
+
+			final Image actor = new Image();
+			actor.setBounds(x, y, ENTITY_SIZE, ENTITY_SIZE);
+			segment.addActor(actor);
+			actors.add(actor);
+
+			store.add(x, y, ENTITY_SIZE, ENTITY_SIZE, 0);
+			if (i % 4 == 0) {
+				// Some enemies are already dying
+				actor.setVisible(false);
+				store.setState(i, EntityStore.DYING);
+			}
+		}
+
+		// Warm up both variants before measuring
+		for (int i = 0; i < 5; i++) {
+			scanActors(actors);
+			scanStore(store);
+		}
+
+		final long actorNanos = scanActors(actors);
+		final long storeNanos = scanStore(store);
+
+		System.out.println("entities\thits/scan\tlist ns/scan\tstore ns/scan");
+		System.out.println(ENTITY_COUNT + "\t\t" + hits / SCANS + "\t\t" + actorNanos + "\t\t" + storeNanos);
+	}
+
+	private static long scanActors(List<Image> actors) {
+		final Rectangle query = new Rectangle();
+		final Rectangle hitbox = new Rectangle();
+		hits = 0;
+
+		final long start = System.nanoTime();
+		for (int scan = 0; scan < SCANS; scan++) {
+			setQuery(query, scan);
+			for (final Image actor : actors) {
+				if (actor.isVisible()) {
+					CollisionUtil.retrieveHitbox(actor, hitbox);
+					if (query.overlaps(hitbox)) {
+						hits++;
+					}
+				}
+			}
+		}
+		return (System.nanoTime() - start) / SCANS;
+	}
+
+	private static long scanStore(EntityStore store) {
+		final Rectangle query = new Rectangle();
+		hits = 0;
+
+		final long start = System.nanoTime();
+		for (int scan = 0; scan < SCANS; scan++) {
+			setQuery(query, scan);
+			for (int i = 0; i < store.getCount(); i++) {
+				if (store.isActive(i) && store.overlaps(i, query)) {
+					hits++;
+				}
+			}
+		}
+		return (System.nanoTime() - start) / SCANS;
+	}
+
+	/**
+	 * Runner sized query box at varying positions inside the segment.
+	 */
+	private static void setQuery(Rectangle query, int scan) {
+		final float x = 200 + (scan * 37 % 1000) / 1000f * SEGMENT_WIDTH;
+		final float y = 207 + (scan * 91 % 1000) / 1000f * SEGMENT_HEIGHT;
+		query.set(x, y, 120, 200);
+	}
+}
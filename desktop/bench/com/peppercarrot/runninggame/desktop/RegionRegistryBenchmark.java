@@ -0,0 +1,224 @@
+package com.peppercarrot.runninggame.desktop;
+
+import java.io.File;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.graphics.GL20;
+import com.badlogic.gdx.graphics.Pixmap;
+import com.badlogic.gdx.graphics.Pixmap.Format;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.TextureData;
+import com.badlogic.gdx.graphics.g2d.TextureAtlas;
+import com.badlogic.gdx.graphics.g2d.TextureAtlas.TextureAtlasData;
+import com.badlogic.gdx.graphics.g2d.TextureAtlas.TextureAtlasData.Region;
+import com.badlogic.gdx.utils.Array;
+import com.peppercarrot.runninggame.utils.RegionRegistry;
+
+/**
+ * Compares the atlas lookups of spawning an enemy by region name, like the
+ * enemies did with {@link TextureAtlas#findRegions(String)}, with the lookups
+ * by handles of the {@link RegionRegistry}. Each spawned enemy looks up its
+ * idle and its death animation, the types are taken round robin from the
+ * enemy regions of the atlas. The regions of the atlas are real, the textures
+ * are not uploaded, since the GL calls are stubbed.
+ *
+ * Usage: <code>RegionRegistryBenchmark [atlas]</code>, run in the assets
+ * directory
+ *
+ * @author momsen
+ *
+ */
+public class RegionRegistryBenchmark {
+
+	private static final int SPAWNS = 200000;
+
+	private static final int RUNS = 5;
+
+	/**
+	 * Sum of the found frames, keeps the lookups from being optimized away
+	 */
+	private static long frames;
+
+	public static void main(String[] args) {
+		final String atlasFile = args.length > 0 ? args[0] : "skin.atlas";
+		final TextureAtlas atlas = loadAtlas(new File(atlasFile));
+
+		final long start = System.nanoTime();
+		final RegionRegistry registry = new RegionRegistry(atlas);
+		final long registryNanos = System.nanoTime() - start;
+
+		final Array<String> types = new Array<String>();
+		for (int i = 0; i < atlas.getRegions().size; i++) {
+			final String name = atlas.getRegions().get(i).name;
+			if (name.endsWith("-idle") && !types.contains(name.substring(0, name.length() - 5), false)) {
+				types.add(name.substring(0, name.length() - 5));
+			}
+		}
+
+		// Resolved once per type, like Enemy.Graphics
+		final int[] idleHandles = new int[types.size];
+		final int[] dyingHandles = new int[types.size];
+		for (int i = 0; i < types.size; i++) {
+			idleHandles[i] = registry.getHandle(types.get(i) + "-idle");
+			dyingHandles[i] = registry.getHandle(types.get(i) + "-death");
+		}
+
+		System.out.println(atlas.getRegions().size + " regions, " + registry.getCount() + " names, " + types.size
+				+ " enemy types, registry built in " + registryNanos / 1000 + "us");
+
+		// Warm up both variants before measuring
+		spawnByName(atlas, types);
+		spawnByHandle(registry, idleHandles, dyingHandles);
+
+		System.out.println("variant\tavg ns/spawn\tmin ns/spawn");
+		print("names", measureByName(atlas, types));
+		print("handles", measureByHandle(registry, idleHandles, dyingHandles));
+		System.out.println("(" + frames + " frames found)");
+	}
+
+	private static void print(String variant, long[] result) {
+		System.out.println(variant + "\t" + result[0] + "\t\t" + result[1]);
+	}
+
+	private static long[] measureByName(TextureAtlas atlas, Array<String> types) {
+		long total = 0;
+		long min = Long.MAX_VALUE;
+		for (int run = 0; run < RUNS; run++) {
+			final long start = System.nanoTime();
+			spawnByName(atlas, types);
+			final long nanos = (System.nanoTime() - start) / SPAWNS;
+			total += nanos;
+			min = Math.min(min, nanos);
+		}
+		return new long[] { total / RUNS, min };
+	}
+
+	private static long[] measureByHandle(RegionRegistry registry, int[] idleHandles, int[] dyingHandles) {
+		long total = 0;
+		long min = Long.MAX_VALUE;
+		for (int run = 0; run < RUNS; run++) {
+			final long start = System.nanoTime();
+			spawnByHandle(registry, idleHandles, dyingHandles);
+			final long nanos = (System.nanoTime() - start) / SPAWNS;
+			total += nanos;
+			min = Math.min(min, nanos);
+		}
+		return new long[] { total / RUNS, min };
+	}
+
+	private static void spawnByName(TextureAtlas atlas, Array<String> types) {
+		for (int i = 0; i < SPAWNS; i++) {
+			final String type = types.get(i % types.size);
+			frames += atlas.findRegions(type + "-idle").size;
+			frames += atlas.findRegions(type + "-death").size;
+		}
+	}
+
+	private static void spawnByHandle(RegionRegistry registry, int[] idleHandles, int[] dyingHandles) {
+		for (int i = 0; i < SPAWNS; i++) {
+			final int type = i % idleHandles.length;
+			frames += registry.getFrames(idleHandles[type]).size;
+			frames += registry.getFrames(dyingHandles[type]).size;
+		}
+	}
+
+	/**
+	 * Loads the regions of an atlas into textures, which are never uploaded.
+	 */
+	private static TextureAtlas loadAtlas(File file) {
+		Gdx.gl = Gdx.gl20 = (GL20) Proxy.newProxyInstance(GL20.class.getClassLoader(), new Class<?>[] { GL20.class },
+				new InvocationHandler() {
+					@Override
+					public Object invoke(Object proxy, Method method, Object[] args) {
+						final Class<?> type = method.getReturnType();
+						if (type == int.class) {
+							return 0;
+						} else if (type == boolean.class) {
+							return false;
+						} else if (type == float.class) {
+							return 0f;
+						}
+						return null;
+					}
+				});
+
+		final FileHandle atlasFile = new FileHandle(file);
+		final TextureAtlasData data = new TextureAtlasData(atlasFile, atlasFile.parent(), false);
+		final TextureAtlas atlas = new TextureAtlas();
+		final Texture texture = new Texture(new UnloadedTextureData(1024, 1024));
+		for (int i = 0; i < data.getRegions().size; i++) {
+			final Region region = data.getRegions().get(i);
+			atlas.addRegion(region.name, texture, region.left, region.top, region.width,
+					region.height).index = region.index;
+		}
+		return atlas;
+	}
+
+	private static class UnloadedTextureData implements TextureData {
+		private final int width;
+
+		private final int height;
+
+		UnloadedTextureData(int width, int height) {
+			this.width = width;
+			this.height = height;
+		}
+
+		@Override
+		public TextureDataType getType() {
+			return TextureDataType.Custom;
+		}
+
+		@Override
+		public boolean isPrepared() {
+			return true;
+		}
+
+		@Override
+		public void prepare() {
+		}
+
+		@Override
+		public Pixmap consumePixmap() {
+			return null;
+		}
+
+		@Override
+		public boolean disposePixmap() {
+			return false;
+		}
+
+		@Override
+		public void consumeCustomData(int target) {
+		}
+
+		@Override
+		public int getWidth() {
+			return width;
+		}
+
+		@Override
+		public int getHeight() {
+			return height;
+		}
+
+		@Override
+		public Format getFormat() {
+			return Format.RGBA8888;
+		}
+
+		@Override
+		public boolean useMipMaps() {
+			return false;
+		}
+
+		@Override
+		public boolean isManaged() {
+			return false;
+		}
+	}
+}
@@ -0,0 +1,106 @@
+package com.peppercarrot.runninggame.desktop;
+
+import java.util.Random;
+
+import com.badlogic.gdx.utils.IntArray;
+import com.peppercarrot.runninggame.world.SegmentGrid;
+
+/**
+ * Compares the query cost of a {@link SegmentGrid} with a linear scan over all
+ * items, while the number of items per segment grows. The scan cost grows
+ * with the number of items in the segment, the grid cost only with the number
+ * of items near the query, which is printed as well. For few items the scan
+ * is faster, the counts between 10 and 100 show the crossover.
+ *
+ * Usage: <code>SegmentGridBenchmark</code>
+ *
+ * @author momsen
+ *
+ */
+public class SegmentGridBenchmark {
+
+	private static final float TILE_SIZE = 95;
+
+	private static final float SEGMENT_WIDTH = 30 * TILE_SIZE;
+
+	private static final float SEGMENT_HEIGHT = 7 * TILE_SIZE;
+
+	private static final float CELL_SIZE = 2 * TILE_SIZE;
+
+	private static final float QUERY_RADIUS = 200;
+
+	private static final int QUERIES = 200000;
+
+	private static final int[] ITEM_COUNTS = { 10, 20, 30, 50, 70, 100, 1000, 10000 };
+
+	/**
+	 * Number of items found by the last run
+	 */
+	private static long hits;
+
+	public static void main(String[] args) {
+		final Random random = new Random(42);
+
+		// Warm up both variants before measuring
+		for (int i = 0; i < 3; i++) {
+			for (final int count : ITEM_COUNTS) {
+				run(random, count, true);
+				run(random, count, false);
+			}
+		}
+
+		System.out.println("items\thits/query\tgrid ns/query\tscan ns/query");
+		for (final int count : ITEM_COUNTS) {
+			final long grid = run(random, count, true);
+			final long scan = run(random, count, false);
+			System.out.println(count + "\t" + hits / QUERIES + "\t\t" + grid + "\t\t" + scan);
+		}
+	}
+
+	private static long run(Random random, int count, boolean useGrid) {
+		final float[] positions = new float[count * 2];
+		for (int i = 0; i < count; i++) {
+			positions[i * 2] = random.nextFloat() * SEGMENT_WIDTH;
+			positions[i * 2 + 1] = random.nextFloat() * SEGMENT_HEIGHT;
+		}
+
+		final SegmentGrid grid = new SegmentGrid();
+		grid.build(positions, count, SEGMENT_WIDTH, SEGMENT_HEIGHT, CELL_SIZE);
+
+		final IntArray candidates = new IntArray();
+		final float radius2 = QUERY_RADIUS * QUERY_RADIUS;
+		hits = 0;
+
+		final long start = System.nanoTime();
+		for (int q = 0; q < QUERIES; q++) {
+			final float x = (q * 37 % 1000) / 1000f * SEGMENT_WIDTH;
+			final float y = (q * 91 % 1000) / 1000f * SEGMENT_HEIGHT;
+
+			if (useGrid) {
+				candidates.clear();
+				grid.query(x - QUERY_RADIUS, y - QUERY_RADIUS, x + QUERY_RADIUS, y + QUERY_RADIUS, candidates);
+				for (int i = 0; i < candidates.size; i++) {
+					final int item = candidates.get(i);
+					if (inside(positions, item, x, y, radius2)) {
+						hits++;
+					}
+				}
+			} else {
+				for (int item = 0; item < count; item++) {
+					if (inside(positions, item, x, y, radius2)) {
+						hits++;
+					}
+				}
+			}
+		}
+		final long nanos = System.nanoTime() - start;
+
+		return nanos / QUERIES;
+	}
+
+	private static boolean inside(float[] positions, int item, float x, float y, float radius2) {
+		final float dx = positions[item * 2] - x;
+		final float dy = positions[item * 2 + 1] - y;
+		return dx * dx + dy * dy <= radius2;
+	}
+}
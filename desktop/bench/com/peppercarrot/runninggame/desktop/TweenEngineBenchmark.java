@@ -0,0 +1,130 @@
+package com.peppercarrot.runninggame.desktop;
+
+import com.badlogic.gdx.math.Interpolation;
+import com.badlogic.gdx.scenes.scene2d.Group;
+import com.badlogic.gdx.scenes.scene2d.actions.Actions;
+import com.badlogic.gdx.scenes.scene2d.ui.Image;
+import com.peppercarrot.runninggame.utils.Callback;
+import com.peppercarrot.runninggame.utils.SimulationClock;
+import com.peppercarrot.runninggame.utils.TweenEngine;
+
+/**
+ * Moves thousands of actors into a point while spinning them, like the black
+ * hole does, once with scene2d actions and once with the {@link TweenEngine}.
+ * Each actor restarts its movement when it has arrived, so the number of
+ * running tweens stays constant. Prints the average and the worst time of a
+ * simulation step over a minute of simulated time.
+ *
+ * Usage: <code>TweenEngineBenchmark</code>
+ *
+ * @author momsen
+ *
+ */
+public class TweenEngineBenchmark {
+
+	private static final int ACTOR_COUNT = 5000;
+
+	private static final int STEPS = 60 * 60;
+
+	private static final float DURATION = 1;
+
+	public static void main(String[] args) {
+		final Image[] actors = new Image[ACTOR_COUNT];
+		final Group group = new Group();
+		for (int i = 0; i < ACTOR_COUNT; i++) {
+			actors[i] = new Image();
+			group.addActor(actors[i]);
+		}
+
+		// Warm up both variants before measuring
+		runActions(actors, group, STEPS);
+		runTweens(actors, STEPS);
+
+		System.out.println("actors\ttweens\tvariant\tavg ns/step\tmax ns/step");
+		print("actions", runActions(actors, group, STEPS));
+		print("tweens", runTweens(actors, STEPS));
+	}
+
+	private static void print(String variant, long[] result) {
+		System.out.println(ACTOR_COUNT + "\t" + ACTOR_COUNT * 2 + "\t" + variant + "\t" + result[0] + "\t\t"
+				+ result[1]);
+	}
+
+	private static long[] runActions(final Image[] actors, final Group group, int steps) {
+		for (int i = 0; i < actors.length; i++) {
+			startActions(actors[i], i);
+		}
+
+		final long[] result = measure(steps, new Step() {
+			@Override
+			public void run(int step) {
+				group.act(SimulationClock.STEP);
+				for (int i = 0; i < actors.length; i++) {
+					// Restart the actors, which have arrived
+					if (actors[i].getActions().size == 1) {
+						actors[i].clearActions();
+						startActions(actors[i], i);
+					}
+				}
+			}
+		});
+
+		for (int i = 0; i < actors.length; i++) {
+			actors[i].clearActions();
+		}
+		return result;
+	}
+
+	private static void startActions(Image actor, int index) {
+		actor.setPosition(index % 100 * 10, index / 100 * 10);
+		actor.addAction(Actions.moveTo(500, 500, DURATION, Interpolation.pow2));
+		actor.addAction(Actions.forever(Actions.rotateBy(360f, 0.8f)));
+	}
+
+	private static long[] runTweens(final Image[] actors, int steps) {
+		final Callback[] arrived = new Callback[actors.length];
+		for (int i = 0; i < actors.length; i++) {
+			final int index = i;
+			arrived[i] = new Callback() {
+				@Override
+				public void invoke() {
+					startTweens(actors[index], index, this);
+				}
+			};
+			TweenEngine.I.repeatBy(actors[i], TweenEngine.ROTATION, 360f, 0.8f);
+			startTweens(actors[i], i, arrived[i]);
+		}
+
+		final long[] result = measure(steps, new Step() {
+			@Override
+			public void run(int step) {
+				TweenEngine.I.update(SimulationClock.STEP);
+			}
+		});
+
+		TweenEngine.I.clear();
+		return result;
+	}
+
+	private static void startTweens(Image actor, int index, Callback arrived) {
+		actor.setPosition(index % 100 * 10, index / 100 * 10);
+		TweenEngine.I.moveTo(actor, 500, 500, DURATION, Interpolation.pow2, arrived);
+	}
+
+	private static long[] measure(int steps, Step step) {
+		long total = 0;
+		long max = 0;
+		for (int i = 0; i < steps; i++) {
+			final long start = System.nanoTime();
+			step.run(i);
+			final long nanos = System.nanoTime() - start;
+			total += nanos;
+			max = Math.max(max, nanos);
+		}
+		return new long[] { total / steps, max };
+	}
+
+	private interface Step {
+		void run(int step);
+	}
+}
@@ -0,0 +1,387 @@
+package com.peppercarrot.runninggame.desktop;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.Base64Coder;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.badlogic.gdx.utils.IntMap;
+import com.badlogic.gdx.utils.ObjectMap;
+import com.badlogic.gdx.utils.StreamUtils;
+import com.badlogic.gdx.utils.XmlReader;
+import com.badlogic.gdx.utils.XmlReader.Element;
+import com.peppercarrot.runninggame.world.LevelSegmentData;
+
+/**
+ * Compiles tiled maps into the binary segment format read by
+ * {@link LevelSegmentData}. Enemies, potions and platforms are extracted here,
+ * so that the game does not have to scan the layers while streaming.
+ *
+ * Usage: <code>LevelSegmentCompiler level1.tmx level2.tmx ...</code>. The
+ * compiled segment is written next to the tiled map.
+ *
+ * @author momsen
+ *
+ */
+public class LevelSegmentCompiler {
+
+	private static final int MASK_CLEAR = 0xE0000000;
+
+	private static class Entity {
+		String name;
+		float x;
+		float y;
+		int zIndex;
+	}
+
+	private static class XPositionComparator implements Comparator<Entity> {
+		@Override
+		public int compare(Entity left, Entity right) {
+			return Float.compare(left.x, right.x);
+		}
+	}
+
+	private static class PlatformXPositionComparator implements Comparator<float[]> {
+		@Override
+		public int compare(float[] left, float[] right) {
+			return Float.compare(left[0], right[0]);
+		}
+	}
+
+	private LevelSegmentCompiler() {
+		// Tool class
+	}
+
+	public static void main(String[] args) {
+		for (final String fileName : args) {
+			final FileHandle tmxFile = new FileHandle(fileName);
+			final FileHandle segmentFile = tmxFile.sibling(tmxFile.nameWithoutExtension() + "."
+					+ LevelSegmentData.FILE_EXTENSION);
+			write(compile(tmxFile), segmentFile);
+			System.out.println("Compiled " + tmxFile + " to " + segmentFile);
+		}
+	}
+
+	/**
+	 * Parses a tiled map and extracts all segment data.
+	 *
+	 * @param tmxFile
+	 *            tiled map
+	 * @return compiled segment
+	 */
+	public static LevelSegmentData compile(FileHandle tmxFile) {
+		final Element map = new XmlReader().parse(tmxFile.readString("UTF-8"));
+
+		final LevelSegmentData data = new LevelSegmentData();
+		data.width = map.getIntAttribute("width");
+		data.height = map.getIntAttribute("height");
+		data.tileWidth = map.getIntAttribute("tilewidth");
+		data.tileHeight = map.getIntAttribute("tileheight");
+
+		final IntMap<ObjectMap<String, String>> tileProperties = new IntMap<ObjectMap<String, String>>();
+		final List<LevelSegmentData.Tileset> tilesets = new ArrayList<LevelSegmentData.Tileset>();
+		for (final Element element : map.getChildrenByName("tileset")) {
+			tilesets.add(parseTileset(element, tileProperties));
+		}
+		data.tilesets = tilesets.toArray(new LevelSegmentData.Tileset[tilesets.size()]);
+
+		final List<LevelSegmentData.Layer> layers = new ArrayList<LevelSegmentData.Layer>();
+		final List<Entity> enemies = new ArrayList<Entity>();
+		final List<Entity> potions = new ArrayList<Entity>();
+		final List<float[]> platforms = new ArrayList<float[]>();
+
+		for (final Element element : map.getChildrenByName("layer")) {
+			final ObjectMap<String, String> properties = parseProperties(element);
+			final int zIndex = Integer.parseInt(get(properties, "z-index", "0"));
+			final int[] gids = parseLayerData(element, data.width, data.height);
+
+			if (element.getIntAttribute("visible", 1) == 1) {
+				final LevelSegmentData.Layer layer = new LevelSegmentData.Layer();
+				layer.zIndex = zIndex;
+				layer.gids = gids;
+				layers.add(layer);
+			}
+
+			if (Boolean.valueOf(get(properties, "events", "false"))) {
+				extractEntities(data, gids, zIndex, tileProperties, enemies, potions);
+			}
+
+			if (Boolean.valueOf(get(properties, "platforms", "false"))) {
+				extractPlatforms(data, gids, platforms);
+			}
+		}
+
+		data.layers = layers.toArray(new LevelSegmentData.Layer[layers.size()]);
+
+		Collections.sort(enemies, new XPositionComparator());
+		data.enemyNames = new String[enemies.size()];
+		data.enemyPositions = new float[enemies.size() * 2];
+		data.enemyZIndices = new int[enemies.size()];
+		for (int i = 0; i < enemies.size(); i++) {
+			final Entity enemy = enemies.get(i);
+			data.enemyNames[i] = enemy.name;
+			data.enemyPositions[i * 2] = enemy.x;
+			data.enemyPositions[i * 2 + 1] = enemy.y;
+			data.enemyZIndices[i] = enemy.zIndex;
+		}
+
+		Collections.sort(potions, new XPositionComparator());
+		data.potionColors = new String[potions.size()];
+		data.potionPositions = new float[potions.size() * 2];
+		data.potionZIndices = new int[potions.size()];
+		for (int i = 0; i < potions.size(); i++) {
+			final Entity potion = potions.get(i);
+			data.potionColors[i] = potion.name;
+			data.potionPositions[i * 2] = potion.x;
+			data.potionPositions[i * 2 + 1] = potion.y;
+			data.potionZIndices[i] = potion.zIndex;
+		}
+
+		Collections.sort(platforms, new PlatformXPositionComparator());
+		data.platforms = new float[platforms.size() * 4];
+		for (int i = 0; i < platforms.size(); i++) {
+			System.arraycopy(platforms.get(i), 0, data.platforms, i * 4, 4);
+		}
+
+		return data;
+	}
+
+	/**
+	 * Writes a compiled segment.
+	 *
+	 * @param data
+	 *            compiled segment
+	 * @param segmentFile
+	 *            target file
+	 */
+	public static void write(LevelSegmentData data, FileHandle segmentFile) {
+		final DataOutputStream out = new DataOutputStream(segmentFile.write(false, 8192));
+		try {
+			out.writeInt(LevelSegmentData.MAGIC);
+			out.writeShort(LevelSegmentData.VERSION);
+			out.writeInt(data.tileWidth);
+			out.writeInt(data.tileHeight);
+			out.writeInt(data.width);
+			out.writeInt(data.height);
+
+			out.writeInt(data.tilesets.length);
+			for (final LevelSegmentData.Tileset tileset : data.tilesets) {
+				writeString(out, tileset.imagePath);
+				out.writeInt(tileset.firstGid);
+				out.writeInt(tileset.tileWidth);
+				out.writeInt(tileset.tileHeight);
+				out.writeInt(tileset.spacing);
+				out.writeInt(tileset.margin);
+				out.writeInt(tileset.imageWidth);
+				out.writeInt(tileset.imageHeight);
+			}
+
+			out.writeInt(data.layers.length);
+			for (final LevelSegmentData.Layer layer : data.layers) {
+				out.writeInt(layer.zIndex);
+				for (final int gid : layer.gids) {
+					out.writeInt(gid);
+				}
+			}
+
+			out.writeInt(data.getEnemyCount());
+			for (int i = 0; i < data.getEnemyCount(); i++) {
+				writeString(out, data.enemyNames[i]);
+				out.writeFloat(data.enemyPositions[i * 2]);
+				out.writeFloat(data.enemyPositions[i * 2 + 1]);
+				out.writeInt(data.enemyZIndices[i]);
+			}
+
+			out.writeInt(data.getPotionCount());
+			for (int i = 0; i < data.getPotionCount(); i++) {
+				writeString(out, data.potionColors[i]);
+				out.writeFloat(data.potionPositions[i * 2]);
+				out.writeFloat(data.potionPositions[i * 2 + 1]);
+				out.writeInt(data.potionZIndices[i]);
+			}
+
+			out.writeInt(data.getPlatformCount());
+			for (final float value : data.platforms) {
+				out.writeFloat(value);
+			}
+		} catch (final IOException e) {
+			throw new GdxRuntimeException("Error writing level segment " + segmentFile, e);
+		} finally {
+			StreamUtils.closeQuietly(out);
+		}
+	}
+
+	private static void writeString(DataOutputStream out, String value) throws IOException {
+		out.writeShort(value.length());
+		out.writeChars(value);
+	}
+
+	private static LevelSegmentData.Tileset parseTileset(Element element,
+			IntMap<ObjectMap<String, String>> tileProperties) {
+		if (element.getAttribute("source", null) != null) {
+			throw new GdxRuntimeException("External tilesets are not supported");
+		}
+
+		final Element image = element.getChildByName("image");
+		final LevelSegmentData.Tileset tileset = new LevelSegmentData.Tileset();
+		tileset.firstGid = element.getIntAttribute("firstgid", 1);
+		tileset.tileWidth = element.getIntAttribute("tilewidth");
+		tileset.tileHeight = element.getIntAttribute("tileheight");
+		tileset.spacing = element.getIntAttribute("spacing", 0);
+		tileset.margin = element.getIntAttribute("margin", 0);
+		tileset.imagePath = image.getAttribute("source");
+		tileset.imageWidth = image.getIntAttribute("width");
+		tileset.imageHeight = image.getIntAttribute("height");
+
+		for (final Element tile : element.getChildrenByName("tile")) {
+			tileProperties.put(tileset.firstGid + tile.getIntAttribute("id"), parseProperties(tile));
+		}
+
+		return tileset;
+	}
+
+	private static ObjectMap<String, String> parseProperties(Element element) {
+		final ObjectMap<String, String> properties = new ObjectMap<String, String>();
+		final Element propertiesElement = element.getChildByName("properties");
+		if (propertiesElement != null) {
+			for (final Element property : propertiesElement.getChildrenByName("property")) {
+				properties.put(property.getAttribute("name"), property.getAttribute("value", null));
+			}
+		}
+		return properties;
+	}
+
+	private static String get(ObjectMap<String, String> properties, String name, String defaultValue) {
+		final String value = properties.get(name);
+		return value != null ? value : defaultValue;
+	}
+
+	/**
+	 * Decodes the layer data. The resulting rows are flipped, so that row 0 is
+	 * the bottom row like in the libgdx tile layers.
+	 */
+	private static int[] parseLayerData(Element layer, int width, int height) {
+		final Element data = layer.getChildByName("data");
+		final String encoding = data.getAttribute("encoding", null);
+		final int[] tiledIds = new int[width * height];
+
+		if (encoding == null) {
+			int i = 0;
+			for (final Element tile : data.getChildrenByName("tile")) {
+				tiledIds[i++] = (int) Long.parseLong(tile.getAttribute("gid", "0"));
+			}
+		} else if ("csv".equals(encoding)) {
+			final String[] values = data.getText().split(",");
+			for (int i = 0; i < tiledIds.length; i++) {
+				tiledIds[i] = (int) Long.parseLong(values[i].trim());
+			}
+		} else if ("base64".equals(encoding)) {
+			readBase64(data, tiledIds);
+		} else {
+			throw new GdxRuntimeException("Unsupported encoding " + encoding);
+		}
+
+		final int[] gids = new int[width * height];
+		for (int y = 0; y < height; y++) {
+			System.arraycopy(tiledIds, y * width, gids, (height - 1 - y) * width, width);
+		}
+		return gids;
+	}
+
+	private static void readBase64(Element data, int[] tiledIds) {
+		final byte[] bytes = Base64Coder.decode(data.getText().trim());
+		final String compression = data.getAttribute("compression", null);
+
+		InputStream in = null;
+		try {
+			if (compression == null) {
+				in = new ByteArrayInputStream(bytes);
+			} else if ("zlib".equals(compression)) {
+				in = new InflaterInputStream(new ByteArrayInputStream(bytes));
+			} else if ("gzip".equals(compression)) {
+				in = new GZIPInputStream(new ByteArrayInputStream(bytes));
+			} else {
+				throw new GdxRuntimeException("Unsupported compression " + compression);
+			}
+
+			final byte[] temp = new byte[4];
+			for (int i = 0; i < tiledIds.length; i++) {
+				int read = 0;
+				while (read < temp.length) {
+					final int count = in.read(temp, read, temp.length - read);
+					if (count == -1) {
+						throw new GdxRuntimeException("Unexpected end of layer data");
+					}
+					read += count;
+				}
+				// Little endian
+				tiledIds[i] = (temp[0] & 0xFF) | (temp[1] & 0xFF) << 8 | (temp[2] & 0xFF) << 16
+						| (temp[3] & 0xFF) << 24;
+			}
+		} catch (final IOException e) {
+			throw new GdxRuntimeException("Error reading layer data", e);
+		} finally {
+			StreamUtils.closeQuietly(in);
+		}
+	}
+
+	private static void extractEntities(LevelSegmentData data, int[] gids, int layerZIndex,
+			IntMap<ObjectMap<String, String>> tileProperties, List<Entity> enemies, List<Entity> potions) {
+		for (int column = 0; column < data.width; column++) {
+			for (int row = 0; row < data.height; row++) {
+				final int gid = gids[row * data.width + column] & ~MASK_CLEAR;
+				final ObjectMap<String, String> properties = tileProperties.get(gid);
+				if (gid == 0 || properties == null) {
+					continue;
+				}
+
+				final String type = properties.get("type");
+				final Entity entity = new Entity();
+				entity.x = (column + 0.5f) * data.tileWidth;
+				entity.y = (row + 0.5f) * data.tileHeight;
+				entity.zIndex = Integer.parseInt(get(properties, "z-index", String.valueOf(layerZIndex)));
+
+				if ("enemy".equals(type)) {
+					// TODO: various types
+					entity.name = "fly";
+					enemies.add(entity);
+				}
+
+				if ("potion".equals(type)) {
+					entity.name = properties.get("color");
+					potions.add(entity);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Extracts the platforms of a layer. Adjacent cells of a row are merged
+	 * into one platform, so a long floor is a single rectangle. Rows are not
+	 * merged, since every row top is a surface the runner can land on.
+	 */
+	private static void extractPlatforms(LevelSegmentData data, int[] gids, List<float[]> platforms) {
+		for (int row = 0; row < data.height; row++) {
+			int runStart = -1;
+			for (int column = 0; column <= data.width; column++) {
+				final boolean occupied = column < data.width && gids[row * data.width + column] != 0;
+				if (occupied && runStart < 0) {
+					runStart = column;
+				} else if (!occupied && runStart >= 0) {
+					platforms.add(new float[] { runStart * data.tileWidth, row * data.tileHeight,
+							(column - runStart) * data.tileWidth, data.tileHeight });
+					runStart = -1;
+				}
+			}
+		}
+	}
+}